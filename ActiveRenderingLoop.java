@@ -0,0 +1,125 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * Active rendering: a thread of the loop's own runs each frame to completion on the EDT - the
+ * listener's step, then the repaints it asked for, painted right away instead of whenever the
+ * RepaintManager gets to them - and sleeps only what is left of the frame budget (the delay)
+ * afterwards. Frames are due on a fixed schedule; a frame that overruns its budget is counted and
+ * the next starts at once, and a loop more than a frame behind starts its schedule over rather
+ * than running frames back to back to catch up (the SimulationClock does the catching up).
+ */
+public class ActiveRenderingLoop implements AnimationLoop {
+
+    private final ActionListener listener;
+    private final JComponent target;
+    private final ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, null);
+    private final Runnable frame = this::runFrame;
+    // The thread running the loop; null when stopped, and a thread that is not this one exits
+    private volatile Thread thread;
+    private volatile int delayMs;
+    private volatile long lastFrameNanos;
+    private volatile long overruns;
+
+    public ActiveRenderingLoop(int delayMs, ActionListener listener, JComponent target) {
+        this.delayMs = delayMs;
+        this.listener = listener;
+        this.target = target;
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.ACTIVE;
+    }
+
+    @Override
+    public void start() {
+        if (thread == null) {
+            Thread loop = new Thread(this::run, "active-rendering");
+            loop.setDaemon(true);
+            thread = loop;
+            loop.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        Thread loop = thread;
+        thread = null;
+        if (loop != null) {
+            LockSupport.unpark(loop);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    @Override
+    public void setDelay(int delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    @Override
+    public int getDelay() {
+        return delayMs;
+    }
+
+    /**
+     * How long the last frame's step and paint took, in nanoseconds.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    /**
+     * How many frames took longer than the budget.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        long deadline = System.nanoTime();
+        while (thread == self) {
+            long start = System.nanoTime();
+            try {
+                SwingUtilities.invokeAndWait(frame);
+            } catch (InterruptedException e) {
+                return;
+            } catch (InvocationTargetException e) {
+                thread = null;
+                throw new IllegalStateException("Animation frame failed", e.getCause());
+            }
+            long now = System.nanoTime();
+            lastFrameNanos = now - start;
+
+            long budget = TimeUnit.MILLISECONDS.toNanos(Math.max(1, delayMs));
+            deadline += budget;
+            if (deadline > now) {
+                LockSupport.parkNanos(this, deadline - now);
+            } else {
+                overruns++;
+                if (now - deadline > budget) {
+                    deadline = now;
+                }
+            }
+        }
+    }
+
+    // On the EDT
+    private void runFrame() {
+        if (thread != null) {
+            listener.actionPerformed(event);
+            RepaintManager.currentManager(target).paintDirtyRegions();
+        }
+    }
+}
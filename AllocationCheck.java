@@ -0,0 +1,98 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Regression check for allocation in the drawers' frame loop. Every demo is stepped and rendered
+ * headless, and the bytes allocated by this thread are read from the ThreadMXBean; once the JIT
+ * has warmed up a frame should allocate nothing, so any demo over the budget fails the check.
+ *
+ * Usage: java AllocationCheck [frames]   (exit status 1 on a regression)
+ */
+public class AllocationCheck {
+
+    // Java2D itself allocates ~96 bytes inside every drawImage of the trail canvas; the budget
+    // allows for that one blit but not for anything per cell or per segment (144 cells at grid 12)
+    private static final double BYTES_PER_FRAME_BUDGET = 128;
+    private static final int WARMUP_FRAMES = 1500;
+    private static final int GRID_SIZE = 12;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isCurrentThreadCpuTimeSupported() || !threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM cannot report per-thread allocation");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        boolean ok = true;
+        for (String demo : OfflineRenderer.demoNames()) {
+            FrameSource source = OfflineRenderer.createDemo(demo, GRID_SIZE);
+            source.setSimulationClock(SimulationClock.deterministic());
+            BufferedImage frame = new BufferedImage(source.getFrameWidth(), source.getFrameHeight(),
+                    BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = frame.createGraphics();
+
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                renderOneFrame(source, g2);
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < frames; i++) {
+                renderOneFrame(source, g2);
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            g2.dispose();
+
+            double perFrame = (double) allocated / frames;
+            boolean pass = perFrame <= BYTES_PER_FRAME_BUDGET;
+            ok &= pass;
+            System.out.printf("%-24s %10.1f bytes/frame  %s%n", demo, perFrame, pass ? "ok" : "OVER BUDGET");
+        }
+        ok &= checkExport(threads, frames);
+        System.exit(ok ? 0 : 1);
+    }
+
+    // The capture side of FrameExporter, which runs on the EDT: once its pool is warm, stepping and
+    // capturing a frame should cost no more than stepping and rendering one
+    private static boolean checkExport(com.sun.management.ThreadMXBean threads, int frames) {
+        FrameSource source = OfflineRenderer.createDemo("lissajous", 0);
+        source.setSimulationClock(SimulationClock.deterministic());
+        long allocated;
+        try {
+            File out = File.createTempFile("allocation-check", ".raw");
+            out.deleteOnExit();
+            FrameExporter exporter = new FrameExporter(source.getFrameWidth(), source.getFrameHeight(),
+                    FrameExporter.Format.RAW, out, FrameExporter.Backpressure.DROP, 60, FrameExporter.DEFAULT_POOL_SIZE);
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                source.stepFrame();
+                exporter.capture(source);
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < frames; i++) {
+                source.stepFrame();
+                exporter.capture(source);
+            }
+            allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            exporter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        double perFrame = (double) allocated / frames;
+        boolean pass = perFrame <= BYTES_PER_FRAME_BUDGET;
+        System.out.printf("%-24s %10.1f bytes/frame  %s%n", "lissajous export", perFrame, pass ? "ok" : "OVER BUDGET");
+        return pass;
+    }
+
+    private static void renderOneFrame(FrameSource source, Graphics2D g2) {
+        source.stepFrame();
+        source.renderFrame(g2);
+    }
+}
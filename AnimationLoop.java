@@ -0,0 +1,91 @@
+import java.awt.event.ActionListener;
+import java.util.Locale;
+import javax.swing.JComponent;
+
+/**
+ * What paces a drawer: something that calls its actionPerformed once per frame while running.
+ * The frames can come from a Swing Timer, a dedicated scheduler thread, an active-rendering loop
+ * that paints each frame itself, a scheduler shared by all the drawers in the JVM, or a caller
+ * stepping them by hand, picked per run with the animation.loop system property or per drawer
+ * with FrameSource.setAnimationLoop.
+ *
+ * A loop is kept in the drawer's timer field, and start / stop / isRunning / setDelay behave like
+ * the Timer's, so the pause buttons and frame-rate controls work with any of them. Except for the
+ * manual loop, frames are delivered on the event dispatch thread like Timer events are.
+ */
+public interface AnimationLoop {
+
+    enum Kind {
+        /** A javax.swing.Timer: frames as coalesced EDT events, at millisecond resolution. */
+        SWING_TIMER,
+        /** A scheduler thread of its own ticking at a fixed rate, each tick posted to the EDT. */
+        EXECUTOR,
+        /** A thread that steps and paints each frame on the EDT, then sleeps what is left of the budget. */
+        ACTIVE,
+        /** No thread at all; frames are run by ManualLoop.step, for headless harnesses. */
+        MANUAL,
+        /** One AnimationScheduler for every drawer in the JVM, ticking them all in one EDT pass. */
+        SHARED;
+
+        public static final String PROPERTY = "animation.loop";
+
+        /**
+         * The kind named by the animation.loop system property, or fallback when it is not set.
+         */
+        public static Kind selected(Kind fallback) {
+            String name = System.getProperty(PROPERTY);
+            return name == null ? fallback : valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        /**
+         * A new, stopped loop of this kind calling listener every delayMs milliseconds; target is
+         * the component the listener repaints, which the active loop paints immediately.
+         */
+        public AnimationLoop create(int delayMs, ActionListener listener, JComponent target) {
+            switch (this) {
+                case SWING_TIMER:
+                    return new SwingTimerLoop(delayMs, listener);
+                case EXECUTOR:
+                    return new ExecutorLoop(delayMs, listener);
+                case ACTIVE:
+                    return new ActiveRenderingLoop(delayMs, listener, target);
+                case SHARED:
+                    return new SharedLoop(delayMs, listener, target);
+                default:
+                    return new ManualLoop(delayMs, listener);
+            }
+        }
+
+        /**
+         * Stops loop and returns a loop of this kind with its delay in its place, started if loop
+         * was running.
+         */
+        public AnimationLoop replace(AnimationLoop loop, ActionListener listener, JComponent target) {
+            boolean running = loop.isRunning();
+            loop.stop();
+            AnimationLoop replacement = create(loop.getDelay(), listener, target);
+            if (running) {
+                replacement.start();
+            }
+            return replacement;
+        }
+    }
+
+    Kind kind();
+
+    void start();
+
+    /**
+     * Stops delivering frames; a frame already under way still finishes.
+     */
+    void stop();
+
+    boolean isRunning();
+
+    /**
+     * The time between frames in milliseconds; takes effect from the next frame.
+     */
+    void setDelay(int delayMs);
+
+    int getDelay();
+}
@@ -0,0 +1,232 @@
+import java.awt.BorderLayout;
+import java.awt.GraphicsEnvironment;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * One clock for a wall of drawers: a single daemon thread ticks at the delay of the fastest
+ * running {@link SharedLoop}, and each tick is one pass on the EDT that runs the frame of every
+ * loop that is due, then paints all the repaints they asked for at once, instead of one Timer
+ * event and one paint per panel. A tick arriving while the last pass is still queued is dropped,
+ * as ExecutorLoop does.
+ *
+ * A loop's delay is its frame-rate cap. Frames fall on the scheduler's ticks, so a loop whose
+ * delay is not a multiple of the tick runs a tick early or late now and then, keeping its rate on
+ * average.
+ *
+ * A loop whose panel cannot be seen - not showing, in a minimized window, or scrolled entirely
+ * out of its viewport - runs at the hidden delay instead, or not at all while that is 0 (the
+ * default). Its clock then drops the missed time when it comes back, as after a pause. The loops
+ * follow their panel's hierarchy, component and window events rather than looking at every
+ * panel on every pass; in a headless JVM nothing is on screen and every loop counts as visible.
+ *
+ * Like Timer, the scheduler and its loops are started, stopped and changed on the EDT.
+ */
+public class AnimationScheduler {
+
+    private static final AnimationScheduler SHARED = new AnimationScheduler();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "animation-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<SharedLoop> loops = new ArrayList<>();
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final Runnable pass = this::runPass;
+    private final Runnable tick = this::postPass;
+    private ScheduledFuture<?> ticks;
+    private long tickNanos;
+    private int hiddenDelayMs;
+
+    private long passes;
+    private long frames;
+    private long skippedFrames;
+
+    /**
+     * The scheduler behind AnimationLoop.Kind.SHARED.
+     */
+    public static AnimationScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * The delay of loops whose panel cannot be seen; 0 suspends them.
+     */
+    public void setHiddenDelay(int delayMs) {
+        if (delayMs < 0) {
+            throw new IllegalArgumentException("delayMs must not be negative: " + delayMs);
+        }
+        hiddenDelayMs = delayMs;
+    }
+
+    public int getHiddenDelay() {
+        return hiddenDelayMs;
+    }
+
+    /**
+     * How many loops are running on this scheduler.
+     */
+    public int getLoopCount() {
+        return loops.size();
+    }
+
+    /**
+     * How many passes have run.
+     */
+    public long getPasses() {
+        return passes;
+    }
+
+    /**
+     * How many frames the passes have run, over all loops.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * How many due frames were not run because their panel could not be seen.
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    void add(SharedLoop loop) {
+        loop.nextNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(loop.getDelay());
+        loops.add(loop);
+        reschedule();
+    }
+
+    void remove(SharedLoop loop) {
+        loops.remove(loop);
+        reschedule();
+    }
+
+    // The tick is the smallest delay of the loops; the ticker stops when there are none
+    void reschedule() {
+        long next = Long.MAX_VALUE;
+        for (SharedLoop loop : loops) {
+            next = Math.min(next, TimeUnit.MILLISECONDS.toNanos(Math.max(1, loop.getDelay())));
+        }
+        if (next == tickNanos && ticks != null) {
+            return;
+        }
+        if (ticks != null) {
+            ticks.cancel(false);
+            ticks = null;
+        }
+        tickNanos = next;
+        if (!loops.isEmpty()) {
+            ticks = ticker.scheduleAtFixedRate(tick, next, next, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // On the ticker thread
+    private void postPass() {
+        if (queued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(pass);
+        }
+    }
+
+    // On the EDT
+    private void runPass() {
+        queued.set(false);
+        passes++;
+        long now = System.nanoTime();
+        // Half a tick early is on time; the loop's next frame is due a whole delay after this one's
+        long slack = tickNanos / 2;
+        boolean headless = GraphicsEnvironment.isHeadless();
+        JComponent painted = null;
+
+        // By index, as a frame may stop its own or another loop
+        for (int i = 0; i < loops.size(); i++) {
+            SharedLoop loop = loops.get(i);
+            if (now - loop.nextNanos < -slack) {
+                continue;
+            }
+            boolean visible = headless || loop.isVisible();
+            int delayMs = visible ? Math.max(1, loop.getDelay()) : hiddenDelayMs;
+            // A suspended loop keeps its own schedule, to count the frames it misses
+            long period = TimeUnit.MILLISECONDS.toNanos(Math.max(1, delayMs == 0 ? loop.getDelay() : delayMs));
+            // A loop more than a frame behind starts its schedule over instead of catching up
+            loop.nextNanos = now - loop.nextNanos > period ? now + period : loop.nextNanos + period;
+            if (delayMs == 0) {
+                skippedFrames++;
+                continue;
+            }
+            frames++;
+            loop.runFrame();
+            if (visible && loop.getTarget() != null) {
+                painted = loop.getTarget();
+            }
+        }
+
+        if (painted != null) {
+            // One paint for the whole wall; RepaintManager's dirty regions are shared by every panel
+            RepaintManager.currentManager(painted).paintDirtyRegions();
+        }
+    }
+
+    /**
+     * A wall of drawers on the shared scheduler: args[0] panels (default 12), Lissajous grids
+     * capped at 30 fps and smooth butterflies at 60, in a scroll pane so that most are off screen.
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Drawer Wall");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+            JPanel wall = new JPanel(new GridLayout(0, 4));
+            for (int i = 0; i < count; i++) {
+                FrameSource drawer;
+                if (i % 2 == 0) {
+                    LissajousDrawerWithFrequencies lissajous = new LissajousDrawerWithFrequencies(false);
+                    lissajous.setAnimationLoop(AnimationLoop.Kind.SHARED);
+                    lissajous.setFrameRate(30);
+                    drawer = lissajous;
+                } else {
+                    SmoothButterflyCurve butterfly = new SmoothButterflyCurve(false);
+                    butterfly.setAnimationLoop(AnimationLoop.Kind.SHARED);
+                    butterfly.setFrameRate(60);
+                    drawer = butterfly;
+                }
+                drawer.getAnimationLoop().start();
+                wall.add((JComponent) drawer);
+            }
+
+            AnimationScheduler scheduler = shared();
+            JLabel status = new JLabel();
+            long[] last = new long[3];
+            new Timer(1000, e -> {
+                status.setText(String.format("%d loops, %d passes/s, %d frames/s, %d skipped/s",
+                        scheduler.getLoopCount(), scheduler.getPasses() - last[0],
+                        scheduler.getFrames() - last[1], scheduler.getSkippedFrames() - last[2]));
+                last[0] = scheduler.getPasses();
+                last[1] = scheduler.getFrames();
+                last[2] = scheduler.getSkippedFrames();
+            }).start();
+
+            frame.add(new JScrollPane(wall), BorderLayout.CENTER);
+            frame.add(status, BorderLayout.SOUTH);
+            frame.setSize(1280, 900);
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,633 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Micro-benchmarks for the rendering hot paths, in the spirit of JMH but without dependencies:
+ * each case is warmed up, then timed over several fixed-length iterations, and its results are
+ * fed to a sink so the JIT cannot drop the work. Every case is parameterized by the sizes that
+ * drive its cost (grid size, canvas size) so the scaling is visible.
+ *
+ * Usage: java -Djava.awt.headless=true Benchmarks [benchmark ...]
+ * With no arguments every benchmark runs.
+ *
+ * The curve, lissajous, fade and parametric cases also run under JMH, from jmh/ (gradle jmh),
+ * where the Lissajous cycle takes its canvas size apart from its grid size.
+ */
+public class Benchmarks {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 500_000_000L;
+
+    private static final int[] GRID_SIZES = {1, 2, 4, 6, 8, 10, 12, 16, 24};
+    private static final int[] CANVAS_SIZES = {200, 400, 700, 800, 1300};
+
+    private static final Map<String, Runnable> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("curve", Benchmarks::curve);
+        BENCHMARKS.put("lissajous", Benchmarks::lissajousCycle);
+        BENCHMARKS.put("layers", Benchmarks::layers);
+        BENCHMARKS.put("backends", Benchmarks::backends);
+        BENCHMARKS.put("fade", Benchmarks::fade);
+        BENCHMARKS.put("lines", Benchmarks::lines);
+        BENCHMARKS.put("trail", Benchmarks::trail);
+        BENCHMARKS.put("sampling", Benchmarks::sampling);
+        BENCHMARKS.put("batch", Benchmarks::batch);
+        BENCHMARKS.put("parametric", Benchmarks::parametric);
+        BENCHMARKS.put("oscillator", Benchmarks::oscillator);
+        BENCHMARKS.put("oscillator-drift", Benchmarks::oscillatorDrift);
+    }
+
+    // Results of every op are folded in here so the work stays observable
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        String[] names = args.length > 0 ? args : BENCHMARKS.keySet().toArray(new String[0]);
+        for (String name : names) {
+            Runnable benchmark = BENCHMARKS.get(name);
+            if (benchmark == null) {
+                System.err.println("Unknown benchmark '" + name + "', expected one of " + BENCHMARKS.keySet());
+                System.exit(1);
+            }
+            benchmark.run();
+        }
+    }
+
+    /**
+     * Times op and prints one result row. Reports the median ns/op over the measured iterations,
+     * with the min and max as the spread.
+     */
+    static double measure(String benchmark, String params, LongSupplier op) {
+        double[] nanosPerOp = new double[MEASURE_ITERATIONS];
+        for (int iteration = -WARMUP_ITERATIONS; iteration < MEASURE_ITERATIONS; iteration++) {
+            long ops = 0;
+            long result = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                result += op.getAsLong();
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            sink += result;
+            if (iteration >= 0) {
+                nanosPerOp[iteration] = (double) elapsed / ops;
+            }
+        }
+        Arrays.sort(nanosPerOp);
+        double median = nanosPerOp[MEASURE_ITERATIONS / 2];
+        System.out.printf("%-28s %-22s %14.1f ns/op  %12.1f ops/s  [%.1f .. %.1f]%n", benchmark, params,
+                median, 1e9 / median, nanosPerOp[0], nanosPerOp[MEASURE_ITERATIONS - 1]);
+        return median;
+    }
+
+    // Butterfly curve evaluation exactly as ButterflyCurve / SmoothButterflyCurve compute it per step
+    private static void curve() {
+        for (int samples : new int[]{1, 1000}) {
+            double[] t = {0};
+            measure("curve.butterfly", "samples=" + samples, () -> {
+                long acc = 0;
+                for (int i = 0; i < samples; i++) {
+                    double r = Math.exp(Math.cos(t[0])) - 2 * Math.cos(4 * t[0]) - Math.pow(Math.sin(t[0] / 12), 5);
+                    acc += (long) (Math.sin(t[0]) * r * 60) + (long) (Math.cos(t[0]) * r * 60);
+                    t[0] += 0.02;
+                }
+                return acc;
+            });
+        }
+
+        ButterflyTable table = new ButterflyTable(60, 0.1);
+        System.out.printf("%-28s %-22s %d samples%n", "curve.table", "scale=60 error=0.1px", table.size());
+        for (int samples : new int[]{1, 1000}) {
+            double[] t = {0};
+            measure("curve.table", "samples=" + samples, () -> {
+                long acc = 0;
+                for (int i = 0; i < samples; i++) {
+                    acc += (long) (table.sampleX(t[0]) * 60) + (long) (table.sampleY(t[0]) * 60);
+                    t[0] += 0.02;
+                    if (t[0] >= ButterflyTable.PERIOD) {
+                        t[0] -= ButterflyTable.PERIOD;
+                    }
+                }
+                return acc;
+            });
+        }
+    }
+
+    // One full actionPerformed + paintComponent cycle of LissajousDrawerWithFrequencies, headless,
+    // on each kind of trail surface that runs here
+    private static void lissajousCycle() {
+        for (int gridSize : GRID_SIZES) {
+            for (RenderBackend.Kind kind : RenderBackend.Kind.values()) {
+                if (!kind.isAvailable()) {
+                    continue;
+                }
+                LissajousDrawerWithFrequencies drawer = new LissajousDrawerWithFrequencies(false);
+                drawer.setGridSize(gridSize);
+                drawer.setRenderBackend(kind);
+                drawer.setSimulationClock(SimulationClock.deterministic());
+                BufferedImage frame = new BufferedImage(drawer.getFrameWidth(), drawer.getFrameHeight(),
+                        BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2 = frame.createGraphics();
+                measure("lissajous.frequencies.cycle", "grid=" + gridSize + " " + kind.name().toLowerCase(), () -> {
+                    drawer.stepFrame();
+                    drawer.renderFrame(g2);
+                    return frame.getRGB(0, 0);
+                });
+                g2.dispose();
+            }
+        }
+    }
+
+    /*
+     * One frame's worth of drawing on an 800x800 translucent trail surface of each kind: a fade,
+     * then either one butterfly dot or a Lissajous grid's worth of 36 short lines, then flush and
+     * blit to the panel. LAZY pays per pixel drawn and shown rather than per pixel of canvas, so it
+     * wins the sparse case and loses the dense one; VOLATILE only runs with a display.
+     */
+    private static void backends() {
+        int size = 800;
+        Sprite dot = Sprite.disc(4, Color.ORANGE);
+        TrailDecay decay = new TrailDecay(0.05f);
+        BufferedImage frame = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = frame.createGraphics();
+        for (RenderBackend.Kind kind : RenderBackend.Kind.values()) {
+            if (!kind.isAvailable()) {
+                continue;
+            }
+            for (int lines : new int[]{0, 36}) {
+                RenderBackend surface = kind.create(size, size, decay, false);
+                double[] angle = {0};
+                measure("backend.frame", kind.name().toLowerCase() + (lines == 0 ? " dot" : " lines=" + lines), () -> {
+                    surface.fade();
+                    double a = angle[0];
+                    angle[0] += 0.02;
+                    int x = size / 2 + (int) (300 * Math.cos(a));
+                    int y = size / 2 + (int) (300 * Math.sin(3 * a));
+                    if (lines == 0) {
+                        surface.dot(dot, x, y);
+                    }
+                    for (int i = 0; i < lines; i++) {
+                        int cx = 50 + (i % 6) * 120;
+                        int cy = 50 + (i / 6) * 120;
+                        surface.line(cx + 40 * Math.cos(a), cy + 40 * Math.sin(2 * a),
+                                cx + 40 * Math.cos(a + 0.02), cy + 40 * Math.sin(2 * a + 0.04),
+                                1.5f, Color.HSBtoRGB(i / 36f, 1f, 1f));
+                    }
+                    Rectangle dirty = surface.flush();
+                    surface.blit(g2, 0, 0);
+                    return dirty.width;
+                });
+            }
+        }
+        g2.dispose();
+    }
+
+    /*
+     * Painting everything but the moving dots of a Lissajous frame at each grid size: the translucent
+     * ARGB trail canvas blended onto the panel with every circle outline blended on top and
+     * antialiased guide lines, against GridLayers' opaque trail canvas, cached circle cells and
+     * plain fillRect guide lines.
+     */
+    private static void layers() {
+        int cellSize = 100;
+        int radius = cellSize / 2 - 10;
+        Sprite ring = Sprite.ring(2 * radius, Color.DARK_GRAY);
+        GridLayers layers = new GridLayers(cellSize, cellSize, radius, ring);
+        Color lineColor = new Color(255, 255, 255, 60);
+        for (int gridSize : GRID_SIZES) {
+            int size = cellSize + gridSize * cellSize;
+            BufferedImage frame = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = frame.createGraphics();
+
+            BufferedImage translucent = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            BufferedImage opaque = GridLayers.createOpaqueCanvas(size, size);
+            for (BufferedImage canvas : new BufferedImage[]{translucent, opaque}) {
+                Graphics2D trailG = canvas.createGraphics();
+                trailG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                trailG.setStroke(new BasicStroke(1.5f));
+                for (int i = 0; i < 200; i++) {
+                    trailG.setColor(Color.getHSBColor(i / 200f, 1f, 1f));
+                    trailG.drawLine(cellSize + i * gridSize / 2, cellSize, size - i * gridSize / 2, size);
+                }
+                trailG.dispose();
+            }
+
+            measure("layers.translucent", "grid=" + gridSize, () -> {
+                g2.setColor(Color.BLACK);
+                g2.fillRect(0, 0, size, size);
+                g2.drawImage(translucent, 0, 0, null);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setColor(lineColor);
+                for (int i = 0; i < gridSize; i++) {
+                    int center = cellSize + i * cellSize + cellSize / 2;
+                    ring.draw(g2, center - radius, cellSize / 2 - radius);
+                    ring.draw(g2, cellSize / 2 - radius, center - radius);
+                    g2.drawLine(center, cellSize, center, size);
+                    g2.drawLine(cellSize, center, size, center);
+                }
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+                return frame.getRGB(size - 1, size - 1);
+            });
+            measure("layers.opaque", "grid=" + gridSize, () -> {
+                g2.setColor(Color.BLACK);
+                g2.fillRect(0, 0, size, size);
+                layers.drawTrails(g2, opaque, 0, 0);
+                layers.drawTopStrip(g2, 0, gridSize - 1);
+                layers.drawLeftStrip(g2, 0, gridSize - 1);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setColor(lineColor);
+                for (int i = 0; i < gridSize; i++) {
+                    int center = cellSize + i * cellSize + cellSize / 2;
+                    g2.fillRect(center, cellSize, 1, size - cellSize + 1);
+                    g2.fillRect(cellSize, center, size - cellSize + 1, 1);
+                }
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+                return frame.getRGB(size - 1, size - 1);
+            });
+            g2.dispose();
+        }
+    }
+
+    /*
+     * One step's worth of trail segments, gridSize^2 of them, each a few pixels long like a Lissajous
+     * dot moves per step: Java2D's antialiased drawLine one call at a time against one
+     * LineRasterizer batch into the same kind of canvas.
+     */
+    private static void lines() {
+        int size = 1300;
+        for (int gridSize : GRID_SIZES) {
+            int count = gridSize * gridSize;
+            float[] segments = new float[4 * count];
+            int[] colors = new int[count];
+            Random random = new Random(gridSize);
+            for (int i = 0; i < count; i++) {
+                float x = 10 + random.nextInt(size - 20);
+                float y = 10 + random.nextInt(size - 20);
+                segments[4 * i] = x;
+                segments[4 * i + 1] = y;
+                segments[4 * i + 2] = x + random.nextInt(9) - 4;
+                segments[4 * i + 3] = y + random.nextInt(9) - 4;
+                colors[i] = Color.HSBtoRGB((float) i / count, 1f, 1f);
+            }
+
+            BufferedImage java2dCanvas = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = java2dCanvas.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setStroke(new BasicStroke(1.5f));
+            Color[] awtColors = new Color[count];
+            for (int i = 0; i < count; i++) {
+                awtColors[i] = new Color(colors[i], true);
+            }
+            measure("lines.java2d", "segments=" + count, () -> {
+                for (int i = 0; i < count; i++) {
+                    g2.setColor(awtColors[i]);
+                    g2.drawLine((int) segments[4 * i], (int) segments[4 * i + 1],
+                            (int) segments[4 * i + 2], (int) segments[4 * i + 3]);
+                }
+                return java2dCanvas.getRGB(size / 2, size / 2);
+            });
+            g2.dispose();
+
+            BufferedImage softwareCanvas = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = TrailDecay.pixelsOf(softwareCanvas);
+            LineRasterizer rasterizer = new LineRasterizer(1.5f);
+            measure("lines.software", "segments=" + count, () -> {
+                rasterizer.drawSegments(pixels, size, size, segments, colors, count);
+                return pixels[pixels.length / 2];
+            });
+        }
+    }
+
+    // The trail fade pass: TrailDecay against the AlphaComposite fillRect it replaced
+    private static void fade() {
+        for (int size : CANVAS_SIZES) {
+            BufferedImage fillCanvas = scribbledCanvas(size);
+            Graphics2D g2 = fillCanvas.createGraphics();
+            measure("fade.fillRect", "canvas=" + size, () -> {
+                g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.01f));
+                g2.setColor(Color.BLACK);
+                g2.fillRect(0, 0, size, size);
+                g2.setComposite(AlphaComposite.SrcOver);
+                return fillCanvas.getRGB(size / 2, size / 2);
+            });
+            g2.dispose();
+
+            BufferedImage decayCanvas = scribbledCanvas(size);
+            int[] pixels = TrailDecay.pixelsOf(decayCanvas);
+            TrailDecay decay = new TrailDecay(0.01f);
+            measure("fade.trailDecay", "canvas=" + size, () -> {
+                decay.apply(pixels, size, size);
+                return pixels[pixels.length / 2];
+            });
+            // Both canvases have now been faded for seconds; anything still lit is a ghost pixel
+            System.out.printf("%-28s %-22s fillRect %d, trailDecay %d%n", "fade.ghostPixels", "canvas=" + size,
+                    litPixels(fillCanvas), litPixels(decayCanvas));
+        }
+    }
+
+    // One butterfly frame: a dot stamped per step onto an 800px canvas, faded eagerly by TrailDecay
+    // every step against LazyTrail, which fades only the stamped and still-lit pixels once a frame
+    private static void trail() {
+        int size = 800;
+        ButterflyTable curve = new ButterflyTable(60, 0.1);
+        Sprite dot = Sprite.disc(4, Color.ORANGE);
+        TrailDecay decay = new TrailDecay(0.01f);
+        for (int stepsPerFrame : new int[] {1, 4, 16}) {
+            int[] pixels = new int[size * size];
+            double[] t = {0};
+            measure("trail.eager", "steps/frame=" + stepsPerFrame, () -> {
+                for (int i = 0; i < stepsPerFrame; i++) {
+                    decay.apply(pixels, size, size);
+                    int x = size / 2 + (int) (curve.sampleX(t[0]) * 60);
+                    int y = size / 2 - (int) (curve.sampleY(t[0]) * 60);
+                    dot.stamp(pixels, size, size, x, y);
+                    t[0] = (t[0] + 0.02) % ButterflyTable.PERIOD;
+                }
+                return pixels[pixels.length / 2];
+            });
+
+            LazyTrail trail = new LazyTrail(size, size, decay);
+            int[] values = trail.values();
+            double[] u = {0};
+            measure("trail.lazy", "steps/frame=" + stepsPerFrame, () -> {
+                for (int i = 0; i < stepsPerFrame; i++) {
+                    trail.advance();
+                    int x = size / 2 + (int) (curve.sampleX(u[0]) * 60);
+                    int y = size / 2 - (int) (curve.sampleY(u[0]) * 60);
+                    trail.prepare(x, y, 4, 4);
+                    dot.stamp(values, size, size, x, y);
+                    u[0] = (u[0] + 0.02) % ButterflyTable.PERIOD;
+                }
+                return trail.resolve().width;
+            });
+        }
+    }
+
+    /*
+     * SmoothButterflyCurve's line over one period of the butterfly (3770 steps of 0.02) on a LAZY
+     * trail, faded and flushed every step: one segment per step between vertices truncated to
+     * whole pixels, against CurveSampler's adaptive segments. Each segment is two lines (glow and
+     * main). The worst error is the largest distance between the exact curve and the segments drawn
+     * for it, sampled 8 times per segment.
+     */
+    private static void sampling() {
+        int size = 800;
+        double scale = 60;
+        double step = 0.02;
+        int steps = (int) Math.round(ButterflyTable.PERIOD / step);
+        ButterflyTable curve = new ButterflyTable(scale, 0.1);
+        TrailDecay decay = new TrailDecay(0.01f);
+        int glow = 0x08FF8000;
+        int main = 0xFFFF8000;
+
+        // Segment count and worst error, from t0 / t1 of each segment
+        double[] fixedError = {0};
+        for (int i = 0; i < steps; i++) {
+            double t0 = i * step;
+            double t1 = t0 + step;
+            fixedError[0] = Math.max(fixedError[0], segmentError(scale, size, t0, t1,
+                    size / 2 + (int) (curve.sampleX(t0) * scale), size / 2 - (int) (curve.sampleY(t0) * scale),
+                    size / 2 + (int) (curve.sampleX(t1) * scale), size / 2 - (int) (curve.sampleY(t1) * scale)));
+        }
+        CurveSampler sampler = new CurveSampler(curve, scale, size / 2, size / 2, 24, 0.5, 5 * step);
+        double[] adaptiveError = {0};
+        double[] segmentStart = {0};
+        for (int i = 0; i < steps; i++) {
+            sampler.advance(step, (x0, y0, x1, y1, t) -> {
+                adaptiveError[0] = Math.max(adaptiveError[0], segmentError(scale, size, segmentStart[0], t, x0, y0, x1, y1));
+                segmentStart[0] = t;
+            });
+        }
+        System.out.printf("%-28s %-22s %d segments, worst error %.2f px%n", "sampling.fixed", "one period",
+                steps, fixedError[0]);
+        System.out.printf("%-28s %-22s %d segments, worst error %.2f px%n", "sampling.adaptive", "one period",
+                sampler.getSegments(), adaptiveError[0]);
+
+        LazyTrail fixedTrail = new LazyTrail(size, size, decay, false);
+        measure("sampling.fixed", "period", () -> {
+            int prevX = size / 2 + (int) (curve.sampleX(0) * scale);
+            int prevY = size / 2 - (int) (curve.sampleY(0) * scale);
+            for (int i = 1; i <= steps; i++) {
+                fixedTrail.fade();
+                int x = size / 2 + (int) (curve.sampleX(i * step) * scale);
+                int y = size / 2 - (int) (curve.sampleY(i * step) * scale);
+                fixedTrail.line(prevX, prevY, x, y, 6f, glow);
+                fixedTrail.line(prevX, prevY, x, y, 2f, main);
+                fixedTrail.flush();
+                prevX = x;
+                prevY = y;
+            }
+            return fixedTrail.flush().width;
+        });
+
+        LazyTrail adaptiveTrail = new LazyTrail(size, size, decay, false);
+        CurveSampler.SegmentSink drawSegment = (x0, y0, x1, y1, t) -> {
+            adaptiveTrail.line(x0, y0, x1, y1, 6f, glow);
+            adaptiveTrail.line(x0, y0, x1, y1, 2f, main);
+        };
+        measure("sampling.adaptive", "period", () -> {
+            for (int i = 1; i <= steps; i++) {
+                adaptiveTrail.fade();
+                sampler.advance(step, drawSegment);
+                adaptiveTrail.flush();
+            }
+            return adaptiveTrail.flush().width;
+        });
+    }
+
+    /*
+     * One ButterflyCurve step at speed K on an 800x800 translucent surface of each kind: a fade,
+     * then K segments along the curve, either as K line() calls or as one polyline() batch with
+     * ButterflyCurve's colour runs, then flush. On the Graphics2D backends the batch pays a stroke
+     * and colour change per run instead of per segment.
+     */
+    private static void batch() {
+        int size = 800;
+        ButterflyTable curve = new ButterflyTable(60, 0.1);
+        HuePalette palette = new HuePalette(HuePalette.DEFAULT_SIZE);
+        TrailDecay decay = new TrailDecay(0.01f);
+        for (int speed : new int[] {16, 256, 4096}) {
+            double[] xs = new double[speed + 1];
+            double[] ys = new double[speed + 1];
+            int[] argb = new int[speed];
+            for (RenderBackend.Kind kind : RenderBackend.Kind.values()) {
+                if (!kind.isAvailable()) {
+                    continue;
+                }
+                for (boolean batched : new boolean[] {false, true}) {
+                    RenderBackend surface = kind.create(size, size, decay, false);
+                    double[] t = {0};
+                    measure(batched ? "batch.polyline" : "batch.lines",
+                            "speed=" + speed + " " + kind.name().toLowerCase(), () -> {
+                        surface.fade();
+                        for (int i = 0; i <= speed; i++) {
+                            double u = t[0] + i * 0.02;
+                            xs[i] = size / 2 + curve.sampleX(u) * 60;
+                            ys[i] = size / 2 - curve.sampleY(u) * 60;
+                            if (i > 0) {
+                                int hue = palette.indexForAngle(u);
+                                argb[i - 1] = palette.get(hue - hue % 8).getRGB();
+                            }
+                        }
+                        t[0] = (t[0] + speed * 0.02) % ButterflyTable.PERIOD;
+                        if (batched) {
+                            surface.polyline(xs, ys, speed + 1, 4f, argb);
+                        } else {
+                            for (int i = 0; i < speed; i++) {
+                                surface.line(xs[i], ys[i], xs[i + 1], ys[i + 1], 4f, argb[i]);
+                            }
+                        }
+                        return surface.flush().width;
+                    });
+                }
+            }
+        }
+    }
+
+    /*
+     * ParametricCurve.evaluate over batches of n consecutive steps of t, scalar against the Vector
+     * API (which only runs with --add-modules jdk.incubator.vector and incubator/ compiled in; its
+     * lane count follows the CPU, and -XX:UseAVX=2 pins an AVX-512 host to 4 lanes). Also builds
+     * the butterfly table, which is 2 to 3 times that many evaluations of the curve.
+     */
+    private static void parametric() {
+        for (ParametricCurve.Kind kind : ParametricCurve.Kind.values()) {
+            if (!kind.isAvailable()) {
+                System.out.printf("%-28s %-22s not available%n", "parametric", kind.name().toLowerCase());
+                continue;
+            }
+            ParametricCurve.Factory curves = kind.factory();
+            for (int n : new int[] {16, 256, 4096}) {
+                double[] t = new double[n];
+                double[] x = new double[n];
+                double[] y = new double[n];
+                for (int i = 0; i < n; i++) {
+                    t[i] = i * 0.02;
+                }
+                ParametricCurve butterfly = curves.butterfly();
+                measure("parametric.butterfly", "n=" + n + " " + kind.name().toLowerCase(), () -> {
+                    butterfly.evaluate(t, x, y, n);
+                    return (long) x[n - 1];
+                });
+                ParametricCurve lissajous = curves.lissajous(40, 3, 2);
+                measure("parametric.lissajous", "n=" + n + " " + kind.name().toLowerCase(), () -> {
+                    lissajous.evaluate(t, x, y, n);
+                    return (long) x[n - 1];
+                });
+            }
+        }
+        measure("parametric.table", ParametricCurve.Kind.selected().name().toLowerCase(),
+                () -> new ButterflyTable(60, 0.1).size());
+    }
+
+    // Largest distance from the exact curve between t0 and t1 to the segment drawn for it
+    private static double segmentError(double scale, int size, double t0, double t1,
+                                       double x0, double y0, double x1, double y1) {
+        double worst = 0;
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double lengthSquared = dx * dx + dy * dy;
+        for (int k = 0; k <= 8; k++) {
+            double t = t0 + (t1 - t0) * k / 8;
+            double px = size / 2.0 + ButterflyTable.x(t) * scale;
+            double py = size / 2.0 - ButterflyTable.y(t) * scale;
+            double along = lengthSquared == 0 ? 0 : ((px - x0) * dx + (py - y0) * dy) / lengthSquared;
+            along = Math.max(0, Math.min(1, along));
+            worst = Math.max(worst, Math.hypot(px - (x0 + along * dx), py - (y0 + along * dy)));
+        }
+        return worst;
+    }
+
+    // Guide circle positions for a whole grid: Math.cos/sin of t * f against PhaseOscillator steps
+    private static void oscillator() {
+        for (int gridSize : GRID_SIZES) {
+            double[] t = {0};
+            measure("oscillator.trig", "circles=" + 2 * gridSize, () -> {
+                long acc = 0;
+                t[0] += 0.01;
+                for (int i = 0; i < 2 * gridSize; i++) {
+                    double angle = t[0] * (i % gridSize + 1);
+                    acc += (long) (40 * Math.cos(angle)) + (long) (40 * Math.sin(angle));
+                }
+                return acc;
+            });
+
+            PhaseOscillator[] oscillators = new PhaseOscillator[2 * gridSize];
+            for (int i = 0; i < oscillators.length; i++) {
+                oscillators[i] = new PhaseOscillator(i % gridSize + 1, 0.01);
+            }
+            measure("oscillator.phase", "circles=" + 2 * gridSize, () -> {
+                long acc = 0;
+                for (PhaseOscillator oscillator : oscillators) {
+                    oscillator.step();
+                    acc += (long) (40 * oscillator.cos()) + (long) (40 * oscillator.sin());
+                }
+                return acc;
+            });
+        }
+    }
+
+    /*
+     * Long-run accuracy of the guide circle angle at the highest frequency (20). The reference is the
+     * exact angle n * f * 0.01 reduced mod 2pi from the integer product n * f. The old code accumulated
+     * t += 0.01 and evaluated Math.cos(t * f), so its error grows with uptime; the oscillator's must not.
+     * 100M steps is about 19 days at 60 steps per second.
+     */
+    private static void oscillatorDrift() {
+        int frequency = 20;
+        double radius = 40;
+        PhaseOscillator oscillator = new PhaseOscillator(frequency, 0.01);
+        double t = 0;
+        long reportEvery = 10_000_000L;
+        System.out.printf("%-28s %-14s %22s %22s%n", "oscillator.drift", "steps", "t += 0.01 error (px)",
+                "oscillator error (px)");
+        for (long n = 1; n <= 10 * reportEvery; n++) {
+            t += 0.01;
+            oscillator.step();
+            if (n % reportEvery == 0) {
+                double exact = Math.IEEEremainder((double) (n * frequency) / 100, 2 * Math.PI);
+                double naiveError = radius * Math.hypot(Math.cos(t * frequency) - Math.cos(exact),
+                        Math.sin(t * frequency) - Math.sin(exact));
+                double oscillatorError = radius * Math.hypot(oscillator.cos() - Math.cos(exact),
+                        oscillator.sin() - Math.sin(exact));
+                System.out.printf("%-28s %-14d %22.6f %22.9f%n", "", n, naiveError, oscillatorError);
+            }
+        }
+    }
+
+    // Opaque black with bright strokes, like a trail canvas that has been running for a while
+    static BufferedImage scribbledCanvas(int size) {
+        BufferedImage canvas = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = canvas.createGraphics();
+        g2.setColor(Color.BLACK);
+        g2.fillRect(0, 0, size, size);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setStroke(new BasicStroke(2f));
+        for (int i = 0; i < 200; i++) {
+            g2.setColor(Color.getHSBColor(i / 200f, 1f, 1f));
+            g2.drawLine(i * size / 200, 0, size - i * size / 200, size);
+        }
+        g2.dispose();
+        return canvas;
+    }
+
+    private static int litPixels(BufferedImage canvas) {
+        int lit = 0;
+        for (int y = 0; y < canvas.getHeight(); y++) {
+            for (int x = 0; x < canvas.getWidth(); x++) {
+                if ((canvas.getRGB(x, y) & 0xFFFFFF) != 0) {
+                    lit++;
+                }
+            }
+        }
+        return lit;
+    }
+}
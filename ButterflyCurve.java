@@ -1,75 +1,232 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
 import javax.swing.*;
 
-public class ButterflyCurve extends JPanel implements ActionListener {
+public class ButterflyCurve extends JPanel implements ActionListener, FrameSource {
 
     private static final int WIDTH = 800;
     private static final int HEIGHT = 800;
+    private static final double CURVE_SCALE = 60;
+    private static final int DOT_SIZE = 4;
+
+    // The most curve steps one simulation step can take (see setSpeed)
+    public static final int MAX_SPEED = 4096;
+    // At speeds above 1 a hue stays on for this many palette entries, so the batch of segments
+    // drawn per step falls into a few same-coloured runs instead of one colour per segment
+    private static final int BATCH_HUE_RUN = 8;
+
+    // The whole curve sampled once, accurate to a tenth of a pixel at CURVE_SCALE
+    private static final ButterflyTable CURVE = new ButterflyTable(CURVE_SCALE, 0.1);
+
+    // One prerendered 4px dot per palette colour, so a step allocates nothing
+    private static final HuePalette HUE_PALETTE = new HuePalette(HuePalette.DEFAULT_SIZE);
+    private static final Sprite[] DOT_SPRITES = new Sprite[HUE_PALETTE.size()];
+
+    static {
+        for (int i = 0; i < DOT_SPRITES.length; i++) {
+            DOT_SPRITES[i] = Sprite.disc(DOT_SIZE, HUE_PALETTE.get(i));
+        }
+    }
 
     private double t = 0;
     private final double step = 0.02;
-    private final Timer timer;
-
-    private final BufferedImage trailCanvas;
-    private final Graphics2D trailG;
+    private int speed = 1;
+    // The curve points of one batched step, and each segment's colour; point 0 is where the last
+    // step ended, if anything has been drawn since the last reset
+    private final double[] batchX = new double[MAX_SPEED + 1];
+    private final double[] batchY = new double[MAX_SPEED + 1];
+    private final int[] batchArgb = new int[MAX_SPEED];
+    private boolean hasLastPoint;
+    private AnimationLoop timer;
+    private SimulationClock clock = SimulationClock.realTime();
 
     private final float trailFadeAlpha = 0.01f; // Low value = long-lasting trail
+    private final TrailDecay trailDecay = new TrailDecay(trailFadeAlpha);
+
+    // Each step draws one small dot, so by default the trail fades lazily: only the dot's pixels
+    // are touched per step, and only the still-lit part of the canvas per frame, which is also all
+    // that is repainted (see LazyTrail)
+    private RenderBackend trail = RenderBackend.Kind.selected(RenderBackend.Kind.LAZY)
+            .create(WIDTH, HEIGHT, trailDecay, false);
+    private Rectangle dirtyRegion = new Rectangle();
+    private final FrameStats stats = new FrameStats("butterfly");
 
     public ButterflyCurve() {
+        this(true);
+    }
+
+    ButterflyCurve(boolean animate) {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
         setBackground(Color.BLACK);
 
-        trailCanvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
-        trailG = trailCanvas.createGraphics();
-        trailG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        trailG.setStroke(new BasicStroke(2.0f));
-
-        timer = new Timer(16, this); // ~60fps
-        timer.start();
+        timer = AnimationLoop.Kind.selected(AnimationLoop.Kind.SWING_TIMER).create(16, this, this); // ~60fps
+        if (animate) {
+            timer.start();
+        }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.drawImage(trailCanvas, 0, 0, null);
+        renderFrame((Graphics2D) g);
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        // Fade effect
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, trailFadeAlpha));
-        trailG.setColor(Color.BLACK);
-        trailG.fillRect(0, 0, WIDTH, HEIGHT);
-        trailG.setComposite(AlphaComposite.SrcOver);
+        stats.tick();
+        stepFrame();
+        repaint(dirtyRegion);
+        if (stats.isHudVisible()) {
+            repaint(stats.getHudBounds());
+        }
+    }
+
+    @Override
+    public int getFrameWidth() {
+        return WIDTH;
+    }
+
+    @Override
+    public int getFrameHeight() {
+        return HEIGHT;
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        long start = stats.paintStarted();
+        trail.blit(g2, 0, 0);
+        stats.paintFinished(start);
+        stats.drawHud(g2);
+    }
+
+    @Override
+    public void stepFrame() {
+        for (int steps = clock.stepsDue(); steps > 0; steps--) {
+            simulateStep();
+        }
+        long start = System.nanoTime();
+        dirtyRegion = trail.flush();
+        stats.lap(FrameStats.Stage.FADE, start);
+        stats.endFrame();
+    }
+
+    @Override
+    public void setSimulationClock(SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public FrameStats getFrameStats() {
+        return stats;
+    }
+
+    @Override
+    public void setAnimationLoop(AnimationLoop.Kind kind) {
+        timer = kind.replace(timer, this, this);
+    }
+
+    @Override
+    public AnimationLoop getAnimationLoop() {
+        return timer;
+    }
+
+    // The trail starts over on the new canvas
+    @Override
+    public void setRenderBackend(RenderBackend.Kind kind) {
+        trail.dispose();
+        trail = kind.create(WIDTH, HEIGHT, trailDecay, false);
+        dirtyRegion = trail.flush();
+        repaint();
+    }
+
+    // How often the panel repaints; the simulation speed is set separately by the clock
+    public void setFrameRate(int framesPerSecond) {
+        timer.setDelay(Math.max(1, 1000 / framesPerSecond));
+    }
+
+    /**
+     * How many steps along the curve each simulation step takes, 1 to MAX_SPEED. At 1 every step
+     * is a dot; above, the points of a step are joined into one polyline (no gaps between dots,
+     * however far apart they are) drawn in a single batched call. The trail still fades once per
+     * simulation step, so it lasts as long on screen at any speed.
+     */
+    public void setSpeed(int speed) {
+        this.speed = Math.max(1, Math.min(MAX_SPEED, speed));
+    }
 
-        // Butterfly equation
-        double scale = 60;
-        double x = Math.sin(t) * (Math.exp(Math.cos(t)) - 2 * Math.cos(4 * t) - Math.pow(Math.sin(t / 12), 5));
-        double y = Math.cos(t) * (Math.exp(Math.cos(t)) - 2 * Math.cos(4 * t) - Math.pow(Math.sin(t / 12), 5));
+    public int getSpeed() {
+        return speed;
+    }
+
+    private void simulateStep() {
+        // Fade effect; the lazy trail defers it until a pixel is drawn on or shown
+        long time = System.nanoTime();
+        trail.fade();
+        time = stats.lap(FrameStats.Stage.FADE, time);
+        if (speed == 1) {
+            dotStep(time);
+        } else {
+            batchStep(time);
+        }
+    }
+
+    private void dotStep(long time) {
+        // Butterfly equation, looked up in the precomputed table
+        double x = CURVE.sampleX(t);
+        double y = CURVE.sampleY(t);
 
         int centerX = WIDTH / 2;
         int centerY = HEIGHT / 2;
-        int px = centerX + (int) (x * scale);
-        int py = centerY - (int) (y * scale); // Invert Y for traditional coordinate
+        int px = centerX + (int) (x * CURVE_SCALE);
+        int py = centerY - (int) (y * CURVE_SCALE); // Invert Y for traditional coordinate
+        time = stats.lap(FrameStats.Stage.GUIDES, time);
 
         // Colorful trail based on t
-        float hue = (float) (t % (2 * Math.PI)) / (float) (2 * Math.PI);
-        trailG.setColor(Color.getHSBColor(hue, 1f, 1f));
-        trailG.fillOval(px, py, 4, 4);
+        trail.dot(DOT_SPRITES[HUE_PALETTE.indexForAngle(t)], px, py);
+        stats.lap(FrameStats.Stage.TRAILS, time);
+
+        batchX[0] = px;
+        batchY[0] = py;
+        hasLastPoint = true;
+        advanceT();
+    }
 
+    // speed points at once, joined to each other and to the last step's final point
+    private void batchStep(long time) {
+        int count = hasLastPoint ? 1 : 0;
+        for (int i = 0; i < speed; i++) {
+            batchX[count] = WIDTH / 2 + CURVE.sampleX(t) * CURVE_SCALE;
+            batchY[count] = HEIGHT / 2 - CURVE.sampleY(t) * CURVE_SCALE;
+            if (count > 0) {
+                int hue = HUE_PALETTE.indexForAngle(t);
+                batchArgb[count - 1] = HUE_PALETTE.get(hue - hue % BATCH_HUE_RUN).getRGB();
+            }
+            count++;
+            advanceT();
+        }
+        time = stats.lap(FrameStats.Stage.GUIDES, time);
+
+        trail.polyline(batchX, batchY, count, DOT_SIZE, batchArgb);
+        stats.lap(FrameStats.Stage.TRAILS, time);
+
+        batchX[0] = batchX[count - 1];
+        batchY[0] = batchY[count - 1];
+        hasLastPoint = true;
+    }
+
+    private void advanceT() {
+        // The curve repeats every 24pi, so keep t in one period
         t += step;
-        repaint();
+        if (t >= ButterflyTable.PERIOD) {
+            t -= ButterflyTable.PERIOD;
+        }
     }
 
     public void reset() {
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
-        trailG.setColor(Color.BLACK);
-        trailG.fillRect(0, 0, WIDTH, HEIGHT);
-        trailG.setComposite(AlphaComposite.SrcOver);
+        trail.clear();
+        dirtyRegion = trail.flush();
         t = 0;
+        hasLastPoint = false;
         repaint();
     }
 
@@ -77,6 +234,7 @@ public class ButterflyCurve extends JPanel implements ActionListener {
         if (timer.isRunning()) {
             timer.stop();
         } else {
+            clock.reset(); // don't try to catch up on the paused time
             timer.start();
         }
     }
@@ -96,9 +254,15 @@ public class ButterflyCurve extends JPanel implements ActionListener {
             JButton resetBtn = new JButton("🔄 Reset");
             resetBtn.addActionListener(e -> panel.reset());
 
+            // Curve steps per simulation step
+            JSpinner speedSpinner = new JSpinner(new SpinnerNumberModel(1, 1, MAX_SPEED, 1));
+            speedSpinner.addChangeListener(e -> panel.setSpeed((Integer) speedSpinner.getValue()));
+
             JPanel controls = new JPanel();
             controls.add(pauseBtn);
             controls.add(resetBtn);
+            controls.add(new JLabel("Speed:"));
+            controls.add(speedSpinner);
 
             frame.setLayout(new BorderLayout());
             frame.add(panel, BorderLayout.CENTER);
@@ -0,0 +1,143 @@
+/**
+ * The butterfly curve sampled once over its full period of 24pi, so the animations can look up
+ * a point instead of evaluating exp, four trig calls and a pow on every step.
+ *
+ * The table holds the curve in curve units (before scaling to pixels) as float pairs, plus one
+ * extra entry equal to the first so that interpolation wraps around without a modulo. Its size is
+ * the smallest power of two for which linear interpolation stays within maxPixelError of the
+ * exact curve once scaled by the animation's scale factor. The exact curve is evaluated in batches
+ * through {@link ParametricCurve}, with the Vector API where it is available.
+ */
+public class ButterflyTable {
+
+    public static final double PERIOD = 24 * Math.PI;
+
+    private static final int MIN_SAMPLES = 1 << 10;
+    private static final int MAX_SAMPLES = 1 << 22;
+    // Points per ParametricCurve.evaluate call while building the table
+    private static final int BATCH = 4096;
+
+    private final float[] xs;
+    private final float[] ys;
+    private final int samples;
+    private final double samplesPerRadian;
+
+    public ButterflyTable(double scale, double maxPixelError) {
+        Batch batch = new Batch(ParametricCurve.butterfly());
+        double maxError = maxPixelError / scale;
+        int n = MIN_SAMPLES;
+        while (n < MAX_SAMPLES && interpolationError(batch, n) > maxError) {
+            n *= 2;
+        }
+        samples = n;
+        samplesPerRadian = n / PERIOD;
+        xs = new float[n + 1];
+        ys = new float[n + 1];
+        for (int start = 0; start < n; start += BATCH) {
+            int count = Math.min(BATCH, n - start);
+            for (int k = 0; k < count; k++) {
+                batch.t[k] = (start + k) / samplesPerRadian;
+            }
+            batch.evaluate(count);
+            for (int k = 0; k < count; k++) {
+                xs[start + k] = (float) batch.x[k];
+                ys[start + k] = (float) batch.y[k];
+            }
+        }
+        xs[n] = xs[0];
+        ys[n] = ys[0];
+    }
+
+    // r = e^cos(t) - 2cos(4t) - sin^5(t/12)
+    static double radius(double t) {
+        return Math.exp(Math.cos(t)) - 2 * Math.cos(4 * t) - Math.pow(Math.sin(t / 12), 5);
+    }
+
+    /**
+     * The exact curve: x = sin(t) * r(t).
+     */
+    public static double x(double t) {
+        return Math.sin(t) * radius(t);
+    }
+
+    /**
+     * The exact curve: y = cos(t) * r(t).
+     */
+    public static double y(double t) {
+        return Math.cos(t) * radius(t);
+    }
+
+    /**
+     * Wraps t into [0, PERIOD); the curve is the same there, and t stays bounded however long it runs.
+     */
+    public static double wrap(double t) {
+        double wrapped = t % PERIOD;
+        return wrapped < 0 ? wrapped + PERIOD : wrapped;
+    }
+
+    public double sampleX(double t) {
+        return interpolate(xs, t);
+    }
+
+    public double sampleY(double t) {
+        return interpolate(ys, t);
+    }
+
+    public int size() {
+        return samples;
+    }
+
+    private double interpolate(float[] table, double t) {
+        double position = wrap(t) * samplesPerRadian;
+        int i = (int) position;
+        if (i >= samples) {
+            // t a hair below PERIOD can round up to the last position
+            i = samples - 1;
+        }
+        double fraction = position - i;
+        return table[i] + (table[i + 1] - table[i]) * fraction;
+    }
+
+    // Largest distance between the exact curve and the chord midpoint, over all n intervals; each
+    // batch holds the ends of BATCH / 2 intervals followed by their midpoints
+    private static double interpolationError(Batch batch, int n) {
+        double step = PERIOD / n;
+        double worst = 0;
+        double x0 = x(0);
+        double y0 = y(0);
+        int half = BATCH / 2;
+        for (int start = 0; start < n; start += half) {
+            int count = Math.min(half, n - start);
+            for (int k = 0; k < count; k++) {
+                batch.t[k] = (start + k + 1) * step;
+                batch.t[count + k] = (start + k + 0.5) * step;
+            }
+            batch.evaluate(2 * count);
+            for (int k = 0; k < count; k++) {
+                double x1 = batch.x[k];
+                double y1 = batch.y[k];
+                worst = Math.max(worst, Math.hypot(batch.x[count + k] - (x0 + x1) / 2,
+                        batch.y[count + k] - (y0 + y1) / 2));
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        return worst;
+    }
+
+    // Reusable argument and result arrays for one ParametricCurve
+    private static final class Batch {
+        final ParametricCurve curve;
+        final double[] t = new double[BATCH];
+        final double[] x = new double[BATCH];
+        final double[] y = new double[BATCH];
+
+        Batch(ParametricCurve curve) {
+            this.curve = curve;
+        }
+
+        void evaluate(int n) {
+            curve.evaluate(t, x, y, n);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Recycles the int[] behind trail canvases, so that a demo whose canvas changes size (the grid
+ * size spinners) does not allocate several megabytes per change. A released canvas's array goes
+ * back into the pool, and the next canvas is built on the smallest pooled array that holds at
+ * least width * height pixels, only its first width * height used. Going back and forth between
+ * a few sizes therefore settles on a few arrays, sized for the largest.
+ *
+ * At most maxPooled arrays are kept; beyond that the smallest is let go, as the larger ones can
+ * stand in for it. Like the surfaces it serves, a pool is not thread-safe.
+ */
+public class CanvasPool {
+
+    private static final DirectColorModel OPAQUE = new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+
+    private final int[][] pooled;
+    private int count;
+    private long allocations;
+    private long reuses;
+
+    public CanvasPool(int maxPooled) {
+        pooled = new int[maxPooled][];
+    }
+
+    /**
+     * A cleared width x height canvas, TYPE_INT_RGB (black) if opaque and TYPE_INT_ARGB
+     * (transparent) otherwise, like those GridLayers.createOpaqueCanvas and the backends make.
+     * Its pixels are available through TrailDecay.pixelsOf, which returns the whole array: only
+     * the first width * height entries belong to the canvas.
+     */
+    public BufferedImage acquire(int width, int height, boolean opaque) {
+        int size = width * height;
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (pooled[i].length >= size && (best < 0 || pooled[i].length < pooled[best].length)) {
+                best = i;
+            }
+        }
+        int[] data;
+        if (best >= 0) {
+            data = pooled[best];
+            pooled[best] = pooled[--count];
+            pooled[count] = null;
+            Arrays.fill(data, 0, size, 0);
+            reuses++;
+        } else {
+            data = new int[size];
+            allocations++;
+        }
+
+        DirectColorModel model = opaque ? OPAQUE : (DirectColorModel) ColorModel.getRGBdefault();
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(data, size), width, height, width,
+                model.getMasks(), null);
+        return new BufferedImage(model, raster, false, null);
+    }
+
+    /**
+     * Takes back a canvas made by acquire(); it must not be used afterwards.
+     */
+    public void release(BufferedImage canvas) {
+        int[] data = TrailDecay.pixelsOf(canvas);
+        if (count < pooled.length) {
+            pooled[count++] = data;
+            return;
+        }
+        int smallest = 0;
+        for (int i = 1; i < count; i++) {
+            if (pooled[i].length < pooled[smallest].length) {
+                smallest = i;
+            }
+        }
+        if (pooled.length > 0 && pooled[smallest].length < data.length) {
+            pooled[smallest] = data;
+        }
+    }
+
+    /**
+     * How many canvases needed a new array.
+     */
+    public long getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * How many canvases were built on a pooled array.
+     */
+    public long getReuses() {
+        return reuses;
+    }
+
+    /**
+     * The pixels held in the pool, in bytes.
+     */
+    public long getPooledBytes() {
+        long bytes = 0;
+        for (int i = 0; i < count; i++) {
+            bytes += 4L * pooled[i].length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Walks the butterfly curve in screen space and cuts it into segments by how it looks on screen
+ * rather than by a fixed step in t. A segment reaches as far along the curve as it can while its
+ * midpoint stays within tolerance pixels of the curve's and it is at most maxLength pixels long:
+ * where the curve bends hard the segments get short, and where it is nearly straight or barely
+ * moving on screen consecutive steps merge into one segment. Vertices keep their sub-pixel
+ * position instead of being truncated to whole pixels.
+ *
+ * The simulation still advances t by a fixed amount per step (advance()); only the drawing is
+ * adaptive. The stretch of curve since the last segment is held back until it can no longer be
+ * extended, at most maxSpan of t, so the drawn line trails the simulation by that much.
+ */
+public class CurveSampler {
+
+    /**
+     * Receives each segment; t is the curve parameter at its end, for colouring.
+     */
+    public interface SegmentSink {
+        void segment(double x0, double y0, double x1, double y1, double t);
+    }
+
+    // Below this the stretch is drawn as it is rather than split further
+    private static final double MIN_SPAN = 1e-6;
+
+    private final ButterflyTable curve;
+    private final double scale;
+    private final double originX;
+    private final double originY;
+    private final double maxLength;
+    private final double tolerance;
+    private final double maxSpan;
+
+    // The end of the last segment drawn, and how far the simulation has got past it
+    private double anchorT;
+    private double anchorX;
+    private double anchorY;
+    private double headT;
+    // The end point of the last stretch tried by fits()
+    private double endX;
+    private double endY;
+    private long segments;
+
+    /**
+     * Curve point (x, y) is drawn at (originX + x * scale, originY - y * scale).
+     */
+    public CurveSampler(ButterflyTable curve, double scale, double originX, double originY,
+                        double maxLength, double tolerance, double maxSpan) {
+        this.curve = curve;
+        this.scale = scale;
+        this.originX = originX;
+        this.originY = originY;
+        this.maxLength = maxLength;
+        this.tolerance = tolerance;
+        this.maxSpan = maxSpan;
+        reset(0);
+    }
+
+    /**
+     * Starts over at t, with nothing drawn yet.
+     */
+    public void reset(double t) {
+        anchorT = t;
+        headT = t;
+        anchorX = screenX(t);
+        anchorY = screenY(t);
+    }
+
+    /**
+     * Moves the simulation dt further along the curve and hands the segments that are now final
+     * to sink, in order; returns how many there were.
+     */
+    public int advance(double dt, SegmentSink sink) {
+        headT += dt;
+        int emitted = 0;
+        while (true) {
+            double span = headT - anchorT;
+            if (span <= maxSpan && fits(span)) {
+                break;
+            }
+            // The longest stretch that fits, halving from as long as allowed
+            double h = Math.min(span, maxSpan);
+            if (h == span) {
+                h *= 0.5;
+            }
+            while (!fits(h) && h > MIN_SPAN) {
+                h *= 0.5;
+            }
+            anchorT += h;
+            sink.segment(anchorX, anchorY, endX, endY, anchorT);
+            anchorX = endX;
+            anchorY = endY;
+            emitted++;
+        }
+        segments += emitted;
+
+        // Keep t bounded; the table wraps it anyway
+        if (anchorT >= ButterflyTable.PERIOD) {
+            anchorT -= ButterflyTable.PERIOD;
+            headT -= ButterflyTable.PERIOD;
+        }
+        return emitted;
+    }
+
+    /**
+     * Where the simulation is, including the stretch not drawn yet.
+     */
+    public double getT() {
+        return headT;
+    }
+
+    /**
+     * How many segments have been emitted since this sampler was created.
+     */
+    public long getSegments() {
+        return segments;
+    }
+
+    // Whether the curve from anchorT to anchorT + span can be drawn as one segment
+    private boolean fits(double span) {
+        double t = anchorT + span;
+        endX = screenX(t);
+        endY = screenY(t);
+        double dx = endX - anchorX;
+        double dy = endY - anchorY;
+        if (dx * dx + dy * dy > maxLength * maxLength) {
+            return false;
+        }
+        double mid = anchorT + span * 0.5;
+        double mx = screenX(mid) - (anchorX + endX) * 0.5;
+        double my = screenY(mid) - (anchorY + endY) * 0.5;
+        return mx * mx + my * my <= tolerance * tolerance;
+    }
+
+    private double screenX(double t) {
+        return originX + curve.sampleX(t) * scale;
+    }
+
+    private double screenY(double t) {
+        return originY - curve.sampleY(t) * scale;
+    }
+}
@@ -0,0 +1,94 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+
+/**
+ * Frames ticked at a fixed rate by a ScheduledExecutorService on a daemon thread rather than the
+ * EDT, so the ticks keep their spacing even while the EDT is busy with something else. Each tick
+ * is posted to the EDT, where the frame runs; a tick arriving while the last one is still queued
+ * there is dropped, the way a Timer coalesces its events.
+ *
+ * All executor loops share the one thread: a tick only posts an event, and a loop that is
+ * stopped, or replaced by another kind, leaves nothing behind but its cancelled schedule.
+ */
+public class ExecutorLoop implements AnimationLoop {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "animation-loop");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ActionListener listener;
+    // One event for every frame; the listeners never keep it
+    private final ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, null);
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final Runnable frame = this::runFrame;
+    private final Runnable tick = this::postFrame;
+    private ScheduledFuture<?> ticks;
+    private int delayMs;
+
+    public ExecutorLoop(int delayMs, ActionListener listener) {
+        this.delayMs = delayMs;
+        this.listener = listener;
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.EXECUTOR;
+    }
+
+    @Override
+    public void start() {
+        if (ticks == null) {
+            long period = TimeUnit.MILLISECONDS.toNanos(Math.max(1, delayMs));
+            ticks = SCHEDULER.scheduleAtFixedRate(tick, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (ticks != null) {
+            ticks.cancel(false);
+            ticks = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ticks != null;
+    }
+
+    @Override
+    public void setDelay(int delayMs) {
+        this.delayMs = delayMs;
+        if (isRunning()) {
+            stop();
+            start();
+        }
+    }
+
+    @Override
+    public int getDelay() {
+        return delayMs;
+    }
+
+    // On the scheduler thread
+    private void postFrame() {
+        if (queued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(frame);
+        }
+    }
+
+    // On the EDT, like start and stop, so a frame posted just before stop() is skipped
+    private void runFrame() {
+        queued.set(false);
+        if (isRunning()) {
+            listener.actionPerformed(event);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import javax.swing.*;
+
+/**
+ * Records a running demo losslessly, frame by frame, without encoding on the EDT. On each tick
+ * capture() renders the demo into a frame from a fixed pool and queues it; background encoder
+ * threads write the queued frames out and hand them back to the pool. Once every frame of the pool
+ * has been used, capturing allocates nothing (ImageIO still allocates on the encoder threads).
+ *
+ * Formats: a PNG sequence (frame_00000.png ... in a directory, encoded by several threads), an
+ * animated GIF, YUV4MPEG2 (4:4:4, BT.601 studio range, which ffmpeg and most players read), or
+ * RAW packed 8-bit RGB. All but PNG are one stream, so they get a single encoder and stay in order.
+ *
+ * When the encoders fall behind and the pool runs dry, the policy decides what capture() does:
+ * BLOCK waits for a frame to come back (the animation stalls but nothing is lost), DROP skips the
+ * tick, and REDUCE_RATE skips it and then only captures every second, fourth, ... tick until the
+ * encoders have caught up again. A frame captured at a reduced rate stands for that many ticks:
+ * it is shown for longer in a GIF and written repeatedly to Y4M and RAW, so playback keeps the
+ * animation's speed.
+ *
+ * capture() is meant for one thread (the EDT); close() once capturing has stopped.
+ *
+ * Usage: java FrameExporter [--policy=block|drop|reduce-rate] [--seconds=N] [--pool=N]
+ *                           <png|gif|y4m|raw> <out> <demo>[:gridSize]
+ */
+public class FrameExporter implements AutoCloseable {
+
+    public enum Format {
+        PNG, GIF, Y4M, RAW
+    }
+
+    public enum Backpressure {
+        BLOCK, DROP, REDUCE_RATE
+    }
+
+    public static final int DEFAULT_POOL_SIZE = 8;
+    // REDUCE_RATE never goes below one frame in this many ticks
+    private static final int MAX_STRIDE = 16;
+    // and goes back up a step after this many captures with at least half the pool free
+    private static final int CALM_CAPTURES = 30;
+    private static final byte[] Y4M_FRAME = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final class Frame {
+        final BufferedImage image;
+        final int[] pixels;
+        final Graphics2D g2;
+        long index;
+        int ticks;
+
+        Frame(int width, int height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            g2 = image.createGraphics();
+        }
+
+        // The end-of-stream marker
+        Frame() {
+            image = null;
+            pixels = null;
+            g2 = null;
+        }
+    }
+
+    private static final Frame END = new Frame();
+
+    private final int width;
+    private final int height;
+    private final Format format;
+    private final File out;
+    private final Backpressure policy;
+    private final int framesPerSecond;
+    private final int poolSize;
+    private final BlockingQueue<Frame> free;
+    private final BlockingQueue<Frame> pending;
+    private final Thread[] encoders;
+
+    // Capture side, only touched by the capturing thread
+    private long ticks;
+    private long captured;
+    private long dropped;
+    private int stride = 1;
+    private int calm;
+
+    private final AtomicLong encoded = new AtomicLong();
+    private volatile Exception failure;
+
+    // The single stream of the GIF, Y4M and RAW formats, only touched by their one encoder
+    private ImageWriter gifWriter;
+    private ImageOutputStream gifStream;
+    private OutputStream stream;
+    private byte[] streamBytes;
+
+    public FrameExporter(int width, int height, Format format, File out, Backpressure policy,
+                         int framesPerSecond, int poolSize) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.out = out;
+        this.policy = policy;
+        this.framesPerSecond = framesPerSecond;
+        this.poolSize = poolSize;
+        free = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            free.add(new Frame(width, height));
+        }
+        int encoderCount = format == Format.PNG
+                ? Math.max(1, Math.min(poolSize - 1, Runtime.getRuntime().availableProcessors()))
+                : 1;
+        pending = new ArrayBlockingQueue<>(poolSize + encoderCount);
+        openOutput();
+
+        encoders = new Thread[encoderCount];
+        for (int i = 0; i < encoderCount; i++) {
+            encoders[i] = new Thread(this::encodeLoop, "frame-export-" + i);
+            encoders[i].setDaemon(true);
+            encoders[i].start();
+        }
+    }
+
+    /**
+     * Renders the source's current frame into a pooled frame and queues it for encoding, if the
+     * policy lets this tick through; returns whether it was captured.
+     */
+    public boolean capture(FrameSource source) {
+        if (policy == Backpressure.REDUCE_RATE && ticks++ % stride != 0) {
+            return false;
+        }
+        Frame frame = policy == Backpressure.BLOCK ? takeFree() : free.poll();
+        if (frame == null) {
+            dropped++;
+            if (policy == Backpressure.REDUCE_RATE) {
+                stride = Math.min(stride * 2, MAX_STRIDE);
+                calm = 0;
+            }
+            return false;
+        }
+        if (policy == Backpressure.REDUCE_RATE && stride > 1 && free.size() >= poolSize / 2
+                && ++calm >= CALM_CAPTURES) {
+            stride /= 2;
+            calm = 0;
+        }
+
+        frame.g2.setColor(Color.BLACK);
+        frame.g2.fillRect(0, 0, width, height);
+        source.renderFrame(frame.g2);
+        frame.index = captured++;
+        frame.ticks = stride;
+        // Never full: it has room for the whole pool
+        pending.add(frame);
+        return true;
+    }
+
+    public long getCaptured() {
+        return captured;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getEncoded() {
+        return encoded.get();
+    }
+
+    /**
+     * Waits for every captured frame to be written and closes the output; throws the first
+     * error an encoder ran into, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < encoders.length; i++) {
+            pending.add(END);
+        }
+        try {
+            for (Thread encoder : encoders) {
+                encoder.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while finishing the export", e);
+        }
+        closeOutput();
+        if (failure != null) {
+            throw new IOException("Export to " + out + " failed", failure);
+        }
+    }
+
+    private Frame takeFree() {
+        try {
+            return free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void encodeLoop() {
+        for (;;) {
+            Frame frame;
+            try {
+                frame = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == END) {
+                return;
+            }
+            try {
+                // After a failure the frames are still recycled, so capture() never waits forever
+                if (failure == null) {
+                    encode(frame);
+                    encoded.incrementAndGet();
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } finally {
+                free.add(frame);
+            }
+        }
+    }
+
+    private void openOutput() throws IOException {
+        switch (format) {
+            case PNG:
+                if (!out.isDirectory() && !out.mkdirs()) {
+                    throw new IOException("Cannot create " + out);
+                }
+                break;
+            case GIF:
+                gifWriter = ImageIO.getImageWritersByFormatName("gif").next();
+                gifStream = ImageIO.createImageOutputStream(out);
+                if (gifStream == null) {
+                    throw new IOException("Cannot write " + out);
+                }
+                gifWriter.setOutput(gifStream);
+                gifWriter.prepareWriteSequence(null);
+                break;
+            case Y4M:
+            case RAW:
+                stream = new BufferedOutputStream(new FileOutputStream(out), 1 << 16);
+                streamBytes = new byte[3 * width * height];
+                if (format == Format.Y4M) {
+                    stream.write(String.format("YUV4MPEG2 W%d H%d F%d:1 Ip A1:1 C444\n", width, height, framesPerSecond)
+                            .getBytes(StandardCharsets.US_ASCII));
+                }
+                break;
+        }
+    }
+
+    private void encode(Frame frame) throws IOException {
+        switch (format) {
+            case PNG:
+                ImageIO.write(frame.image, "png", new File(out, String.format("frame_%05d.png", frame.index)));
+                break;
+            case GIF:
+                gifWriter.writeToSequence(new IIOImage(frame.image, null, gifMetadata(frame)), null);
+                break;
+            case Y4M:
+                toYuv444(frame.pixels, streamBytes, width * height);
+                for (int i = 0; i < frame.ticks; i++) {
+                    stream.write(Y4M_FRAME);
+                    stream.write(streamBytes);
+                }
+                break;
+            case RAW:
+                toRgb24(frame.pixels, streamBytes);
+                for (int i = 0; i < frame.ticks; i++) {
+                    stream.write(streamBytes);
+                }
+                break;
+        }
+    }
+
+    private void closeOutput() throws IOException {
+        if (gifWriter != null) {
+            gifWriter.endWriteSequence();
+            gifStream.close();
+            gifWriter.dispose();
+        }
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    // The GIF frame delay for this frame's ticks, and on the first frame a loop-forever extension
+    private IIOMetadata gifMetadata(Frame frame) throws IOException {
+        IIOMetadata metadata = gifWriter.getDefaultImageMetadata(
+                ImageTypeSpecifier.createFromRenderedImage(frame.image), null);
+        String formatName = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(formatName);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("transparentColorIndex", "0");
+        control.setAttribute("delayTime", Integer.toString(Math.max(1, Math.round(100f * frame.ticks / framesPerSecond))));
+
+        if (frame.index == 0) {
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[]{1, 0, 0});
+            child(root, "ApplicationExtensions").appendChild(loop);
+        }
+        metadata.setFromTree(formatName, root);
+        return metadata;
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+        for (int i = 0; i < parent.getLength(); i++) {
+            if (parent.item(i).getNodeName().equals(name)) {
+                return (IIOMetadataNode) parent.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+
+    // Planar Y, Cb, Cr with BT.601 studio range coefficients, in 8.8 fixed point
+    static void toYuv444(int[] rgb, byte[] yuv, int count) {
+        for (int i = 0; i < count; i++) {
+            int p = rgb[i];
+            int r = (p >> 16) & 0xFF;
+            int g = (p >> 8) & 0xFF;
+            int b = p & 0xFF;
+            yuv[i] = (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16);
+            yuv[count + i] = (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128);
+            yuv[2 * count + i] = (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128);
+        }
+    }
+
+    static void toRgb24(int[] rgb, byte[] bytes) {
+        for (int i = 0, j = 0; i < rgb.length; i++, j += 3) {
+            int p = rgb[i];
+            bytes[j] = (byte) (p >> 16);
+            bytes[j + 1] = (byte) (p >> 8);
+            bytes[j + 2] = (byte) p;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Backpressure policy = Backpressure.BLOCK;
+        int seconds = 10;
+        int poolSize = DEFAULT_POOL_SIZE;
+        int argIndex = 0;
+        for (; argIndex < args.length && args[argIndex].startsWith("--"); argIndex++) {
+            String arg = args[argIndex];
+            if (arg.startsWith("--policy=")) {
+                policy = Backpressure.valueOf(arg.substring("--policy=".length()).toUpperCase().replace('-', '_'));
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--pool=")) {
+                poolSize = Math.max(2, Integer.parseInt(arg.substring("--pool=".length())));
+            } else {
+                argIndex = args.length;
+            }
+        }
+        if (args.length - argIndex != 3) {
+            System.err.println("Usage: java FrameExporter [--policy=block|drop|reduce-rate] [--seconds=N] [--pool=N] "
+                    + "<png|gif|y4m|raw> <out> <demo>[:gridSize]");
+            System.err.println("Demos: " + OfflineRenderer.demoNames());
+            System.exit(1);
+        }
+        Format format = Format.valueOf(args[argIndex].toUpperCase());
+        File out = new File(args[argIndex + 1]);
+        String[] parts = args[argIndex + 2].split(":");
+        int gridSize = parts.length > 1 ? Integer.parseInt(parts[1]) : OfflineRenderer.defaultGridSize(parts[0]);
+
+        // Tick like the demos' own Swing Timer: step, repaint, and capture the frame just stepped
+        int tickMillis = 16;
+        FrameSource source = OfflineRenderer.createDemo(parts[0], gridSize);
+        JComponent panel = (JComponent) source;
+        FrameExporter exporter = new FrameExporter(source.getFrameWidth(), source.getFrameHeight(), format, out,
+                policy, 1000 / tickMillis, poolSize);
+        AnimationLoop timer = AnimationLoop.Kind.selected(AnimationLoop.Kind.SWING_TIMER).create(tickMillis, e -> {
+            source.stepFrame();
+            panel.repaint();
+            exporter.capture(source);
+        }, panel);
+        SwingUtilities.invokeAndWait(() -> {
+            if (!GraphicsEnvironment.isHeadless()) {
+                JFrame frame = new JFrame("Recording " + args[args.length - 1] + " to " + out);
+                // Shown at the size of the captured frame, so a large grid is not laid out (and its
+                // trails allocated) in full
+                JScrollPane view = new JScrollPane(panel);
+                view.getViewport().setPreferredSize(new Dimension(source.getFrameWidth(), source.getFrameHeight()));
+                frame.setContentPane(view);
+                frame.pack();
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+            }
+            timer.start();
+        });
+        Thread.sleep(seconds * 1000L);
+        SwingUtilities.invokeAndWait(timer::stop);
+
+        exporter.close();
+        System.out.printf("%s: %d frames captured, %d dropped, %d encoded%n",
+                out, exporter.getCaptured(), exporter.getDropped(), exporter.getEncoded());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,51 @@
+import java.awt.Graphics2D;
+
+/**
+ * A drawer whose animation can be advanced and painted without a running animation loop.
+ * The panels implement this so {@link OfflineRenderer} can drive them headless; each also has a
+ * package-private constructor taking a boolean animate, which with false leaves its loop stopped.
+ */
+public interface FrameSource {
+
+    int getFrameWidth();
+
+    int getFrameHeight();
+
+    /**
+     * Advances the animation by one tick: the same work the Timer's actionPerformed does, minus repaint().
+     * The number of simulation steps run is decided by the drawer's {@link SimulationClock}.
+     */
+    void stepFrame();
+
+    /**
+     * Replaces the clock that paces the simulation, e.g. with {@link SimulationClock#deterministic()}
+     * for reproducible offline output.
+     */
+    void setSimulationClock(SimulationClock clock);
+
+    /**
+     * Switches the trail canvas to a surface of the given kind (see {@link RenderBackend}). Until
+     * then it is the kind named by the render.backend system property, or the drawer's own choice.
+     */
+    void setRenderBackend(RenderBackend.Kind kind);
+
+    /**
+     * The drawer's per-stage frame timings, recorded by stepFrame and renderFrame.
+     */
+    FrameStats getFrameStats();
+
+    /**
+     * Switches what paces the drawer's frames to a loop of the given kind (see {@link AnimationLoop}),
+     * keeping its frame rate and whether it is running. Until then it is the kind named by the
+     * animation.loop system property, or a Swing Timer.
+     */
+    void setAnimationLoop(AnimationLoop.Kind kind);
+
+    AnimationLoop getAnimationLoop();
+
+    /**
+     * Paints the current frame (trail canvas plus any overlays) onto the given graphics.
+     * Does not change the animation state, so it may be called any number of times per step.
+     */
+    void renderFrame(Graphics2D g2);
+}
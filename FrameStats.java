@@ -0,0 +1,351 @@
+import java.awt.*;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Where a drawer's frame time goes, stage by stage. Each stage's time per frame is recorded into a
+ * histogram with log-linear buckets (8 per power of two, so any percentile is within 12.5%), which
+ * costs two System.nanoTime() calls and an array increment and allocates nothing. Each frame is
+ * also emitted as a {@link FrameEvent} while a JFR recording has it enabled, and the stats can be
+ * drawn over the panel as a HUD (-Dframe.hud=true, or setHudVisible).
+ *
+ * The drawers time their steps with lap(): step times add up until endFrame() files them as one
+ * frame. Paint time and the latency from the Timer tick to the paint that shows it are recorded by
+ * paintStarted() and paintFinished().
+ *
+ * Recording is meant for one thread (the EDT, or whoever drives the drawer offline). snapshot()
+ * may be called from any thread; a snapshot taken while a frame is being recorded can be off by
+ * that frame.
+ */
+public class FrameStats {
+
+    public enum Stage {
+        /** Fading the trail canvas (for a lazy trail, catching up the lit pixels in flush()). */
+        FADE,
+        /** Moving the guide points: the guide circles' dots, or the point on the butterfly curve. */
+        GUIDES,
+        /** Drawing the new trail segments or dots; for trails stepped in bands, their fade too. */
+        TRAILS,
+        /** renderFrame: compositing the layers onto the panel. */
+        PAINT,
+        /** From the Timer tick to the start of the paint that shows it: stepping plus EDT queueing. */
+        LATENCY
+    }
+
+    public static final String HUD_PROPERTY = "frame.hud";
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final EventType FRAME_EVENT_TYPE = EventType.getEventType(FrameEvent.class);
+    // How often the HUD text is rebuilt; formatting it every frame would allocate every frame
+    private static final long HUD_REFRESH_NANOS = 500_000_000L;
+    private static final Color HUD_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Font HUD_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    private final String drawer;
+    private final Histogram[] histograms = new Histogram[STAGES.length];
+    // This frame's time per stage so far, and the last whole frame's, for its JFR event
+    private final long[] frameNanos = new long[STAGES.length];
+    private final long[] lastNanos = new long[STAGES.length];
+    private long lastFrameNanos;
+    private long tickAt;
+
+    private boolean hudVisible = Boolean.getBoolean(HUD_PROPERTY);
+    private String[] hudLines = new String[0];
+    private long hudBuiltAt;
+    private final Rectangle hudBounds = new Rectangle(8, 8, 300, 16 * (STAGES.length + 1) + 8);
+
+    public FrameStats(String drawer) {
+        this.drawer = drawer;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Adds the time since start to the stage's total for this frame and returns the current time,
+     * so consecutive stages can be timed with one nanoTime() each.
+     */
+    public long lap(Stage stage, long start) {
+        long now = System.nanoTime();
+        frameNanos[stage.ordinal()] += now - start;
+        return now;
+    }
+
+    /**
+     * Marks a Timer tick; the next paintStarted() records the latency since.
+     */
+    public void tick() {
+        tickAt = System.nanoTime();
+    }
+
+    /**
+     * Files the stage times collected by lap() since the last call as one frame.
+     */
+    public void endFrame() {
+        for (Stage stage : STAGES) {
+            if (stage != Stage.PAINT && stage != Stage.LATENCY) {
+                int i = stage.ordinal();
+                histograms[i].record(frameNanos[i]);
+                lastNanos[i] = frameNanos[i];
+                frameNanos[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Called as renderFrame starts; returns the start time for paintFinished().
+     */
+    public long paintStarted() {
+        long now = System.nanoTime();
+        if (tickAt != 0) {
+            lastNanos[Stage.LATENCY.ordinal()] = now - tickAt;
+            histograms[Stage.LATENCY.ordinal()].record(now - tickAt);
+            tickAt = 0;
+        }
+        return now;
+    }
+
+    /**
+     * Records the paint begun at start and emits a JFR event with it and the last frame's stages.
+     */
+    public void paintFinished(long start) {
+        long nanos = System.nanoTime() - start;
+        histograms[Stage.PAINT.ordinal()].record(nanos);
+        lastFrameNanos = lastNanos[Stage.FADE.ordinal()] + lastNanos[Stage.GUIDES.ordinal()]
+                + lastNanos[Stage.TRAILS.ordinal()] + nanos;
+        if (FRAME_EVENT_TYPE.isEnabled()) {
+            FrameEvent event = new FrameEvent();
+            event.drawer = drawer;
+            event.fade = lastNanos[Stage.FADE.ordinal()];
+            event.guides = lastNanos[Stage.GUIDES.ordinal()];
+            event.trails = lastNanos[Stage.TRAILS.ordinal()];
+            event.paint = nanos;
+            event.latency = lastNanos[Stage.LATENCY.ordinal()];
+            event.commit();
+        }
+        lastNanos[Stage.LATENCY.ordinal()] = 0;
+    }
+
+    /**
+     * The work of the last painted frame: its steps and its paint, without the wait for the EDT.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public boolean isHudVisible() {
+        return hudVisible;
+    }
+
+    public void setHudVisible(boolean hudVisible) {
+        this.hudVisible = hudVisible;
+    }
+
+    /**
+     * Where the HUD is drawn, for drawers that only repaint part of the panel.
+     */
+    public Rectangle getHudBounds() {
+        return hudBounds;
+    }
+
+    /**
+     * Draws p50 / p99 / max of every stage in the top-left corner, if the HUD is visible.
+     */
+    public void drawHud(Graphics2D g2) {
+        if (!hudVisible) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (hudLines.length == 0 || now - hudBuiltAt > HUD_REFRESH_NANOS) {
+            hudLines = snapshot().toLines();
+            hudBuiltAt = now;
+        }
+        g2.setColor(HUD_BACKGROUND);
+        g2.fillRect(hudBounds.x, hudBounds.y, hudBounds.width, hudBounds.height);
+        g2.setColor(Color.GREEN);
+        g2.setFont(HUD_FONT);
+        for (int i = 0; i < hudLines.length; i++) {
+            g2.drawString(hudLines[i], hudBounds.x + 6, hudBounds.y + 16 * (i + 1));
+        }
+    }
+
+    public Snapshot snapshot() {
+        Map<Stage, StageStats> stages = new EnumMap<>(Stage.class);
+        for (Stage stage : STAGES) {
+            stages.put(stage, histograms[stage.ordinal()].stats());
+        }
+        return new Snapshot(drawer, stages);
+    }
+
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * One stage's recorded frames; times in nanoseconds, percentiles to within 12.5%.
+     */
+    public static final class StageStats {
+        public final long count;
+        public final long p50;
+        public final long p99;
+        public final long max;
+        public final double mean;
+
+        StageStats(long count, long p50, long p99, long max, double mean) {
+            this.count = count;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%.3fms p99=%.3fms max=%.3fms", count, p50 / 1e6, p99 / 1e6, max / 1e6);
+        }
+    }
+
+    public static final class Snapshot {
+        public final String drawer;
+        private final Map<Stage, StageStats> stages;
+
+        Snapshot(String drawer, Map<Stage, StageStats> stages) {
+            this.drawer = drawer;
+            this.stages = stages;
+        }
+
+        public StageStats get(Stage stage) {
+            return stages.get(stage);
+        }
+
+        String[] toLines() {
+            String[] lines = new String[STAGES.length + 1];
+            lines[0] = String.format("%-8s %8s %8s %8s", "ms", "p50", "p99", "max");
+            for (Stage stage : STAGES) {
+                StageStats stats = stages.get(stage);
+                lines[stage.ordinal() + 1] = String.format("%-8s %8.3f %8.3f %8.3f",
+                        stage.name().toLowerCase(), stats.p50 / 1e6, stats.p99 / 1e6, stats.max / 1e6);
+            }
+            return lines;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(drawer);
+            for (Stage stage : STAGES) {
+                text.append(String.format("%n  %-8s %s", stage.name().toLowerCase(), stages.get(stage)));
+            }
+            return text.toString();
+        }
+    }
+
+    /*
+     * Counts of values in log-linear buckets: values below 8 have a bucket each, and every power
+     * of two above is split into 8 equal buckets.
+     */
+    private static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final long[] counts = new long[64 << SUB_BITS];
+        private long count;
+        private long sum;
+        private long max;
+
+        void record(long value) {
+            value = Math.max(0, value);
+            counts[bucket(value)]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            sum = 0;
+            max = 0;
+        }
+
+        StageStats stats() {
+            return new StageStats(count, percentile(0.5), percentile(0.99), max,
+                    count == 0 ? 0 : (double) sum / count);
+        }
+
+        // The upper end of the bucket holding the given fraction of values, capped at the max
+        private long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+            long width = 1L << (exponent - SUB_BITS);
+            return ((long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BITS)) + width - 1;
+        }
+    }
+
+    /**
+     * One drawer frame, with the time of each stage.
+     */
+    @Name("patterns.Frame")
+    @Label("Frame")
+    @Category("Java Patterns")
+    @Description("Time per stage of one animation frame")
+    public static class FrameEvent extends Event {
+        @Label("Drawer")
+        String drawer;
+
+        @Label("Fade")
+        @Timespan(Timespan.NANOSECONDS)
+        long fade;
+
+        @Label("Guides")
+        @Timespan(Timespan.NANOSECONDS)
+        long guides;
+
+        @Label("Trails")
+        @Timespan(Timespan.NANOSECONDS)
+        long trails;
+
+        @Label("Paint")
+        @Timespan(Timespan.NANOSECONDS)
+        long paint;
+
+        @Label("Tick to paint")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+}
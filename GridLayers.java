@@ -0,0 +1,159 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * The layers a Lissajous grid frame is composited from, so that a frame only redraws what moves:
+ *
+ * - the static layer: the guide circle outlines in the top and left margins. They never change,
+ *   and every circle is the same, so one margin cell of each strip is rendered once, circle on
+ *   black, and copied into place instead of blending the ring sprite every frame;
+ * - the trail layer: the drawer's trail canvas, which is kept opaque (black where there is no
+ *   trail, see {@link #createOpaqueCanvas}) so it is copied to the panel rather than blended;
+ * - the overlay: the moving dots and the guide lines, drawn by the drawer on top.
+ *
+ * The images are opaque and compatible with the screen where its format allows: the trail canvas
+ * is worked on as an int[], so it is TYPE_INT_RGB, which is what compatible images are on common
+ * 24/32-bit displays anyway.
+ */
+public class GridLayers {
+
+    private final int margin;
+    private final int cellSize;
+    private final BufferedImage topCell;
+    private final BufferedImage leftCell;
+    private final Rectangle trailArea = new Rectangle();
+
+    /**
+     * ring is the guide circle outline, as drawn by Sprite.draw at the top-left of a circle of
+     * the given radius centred in its margin cell.
+     */
+    public GridLayers(int margin, int cellSize, int radius, Sprite ring) {
+        this.margin = margin;
+        this.cellSize = cellSize;
+        topCell = createStaticImage(cellSize, margin);
+        leftCell = createStaticImage(margin, cellSize);
+        drawRing(topCell, ring, cellSize / 2 - radius, margin / 2 - radius);
+        drawRing(leftCell, ring, margin / 2 - radius, cellSize / 2 - radius);
+    }
+
+    /**
+     * An opaque width x height trail canvas, black to start with; its pixels are available
+     * through {@link TrailDecay#pixelsOf}.
+     */
+    public static BufferedImage createOpaqueCanvas(int width, int height) {
+        GraphicsConfiguration configuration = screenConfiguration();
+        if (configuration != null) {
+            BufferedImage image = configuration.createCompatibleImage(width, height, Transparency.OPAQUE);
+            if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+                return image;
+            }
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Copies the guide circle outlines of columns first .. last into the top margin.
+     */
+    public void drawTopStrip(Graphics2D g2, int first, int last) {
+        for (int i = first; i <= last; i++) {
+            g2.drawImage(topCell, margin + i * cellSize, 0, null);
+        }
+    }
+
+    /**
+     * Copies the guide circle outlines of rows first .. last into the left margin.
+     */
+    public void drawLeftStrip(Graphics2D g2, int first, int last) {
+        for (int i = first; i <= last; i++) {
+            g2.drawImage(leftCell, 0, margin + i * cellSize, null);
+        }
+    }
+
+    /**
+     * Copies the part of an opaque trail canvas drawn at (x, y) that lies inside the grid, leaving
+     * the margins to the static layer.
+     */
+    public void drawTrails(Graphics2D g2, BufferedImage canvas, int x, int y) {
+        int left = Math.max(x, margin);
+        int top = Math.max(y, margin);
+        int right = x + canvas.getWidth();
+        int bottom = y + canvas.getHeight();
+        if (left < right && top < bottom) {
+            g2.drawImage(canvas, left, top, right, bottom, left - x, top - y, right - x, bottom - y, null);
+        }
+    }
+
+    /**
+     * Like {@link #drawTrails(Graphics2D, BufferedImage, int, int)}, for a trail surface.
+     */
+    public void drawTrails(Graphics2D g2, RenderBackend canvas, int x, int y) {
+        int left = Math.max(x, margin);
+        int top = Math.max(y, margin);
+        int right = x + canvas.getWidth();
+        int bottom = y + canvas.getHeight();
+        if (left < right && top < bottom) {
+            trailArea.setBounds(left - x, top - y, right - left, bottom - top);
+            canvas.blit(g2, x, y, trailArea);
+        }
+    }
+
+    /**
+     * Like {@link #drawTrails(Graphics2D, RenderBackend, int, int)}, for a canvas divisor times
+     * smaller in each direction than the area it covers (half-resolution trails, see
+     * QualityGovernor).
+     */
+    public void drawTrails(Graphics2D g2, RenderBackend canvas, int x, int y, int divisor) {
+        if (divisor == 1) {
+            drawTrails(g2, canvas, x, y);
+            return;
+        }
+        int left = Math.max(x, margin);
+        int top = Math.max(y, margin);
+        int right = x + canvas.getWidth() * divisor;
+        int bottom = y + canvas.getHeight() * divisor;
+        if (left < right && top < bottom) {
+            trailArea.setBounds((left - x) / divisor, (top - y) / divisor,
+                    (right - left) / divisor, (bottom - top) / divisor);
+            blitScaled(g2, canvas, x, y, divisor, trailArea);
+        }
+    }
+
+    /**
+     * Draws the area of canvas (in canvas coordinates) divisor times larger, the canvas's top-left
+     * corner at (x, y). The scaling is bilinear where the pipeline accelerates drawing images, and
+     * nearest neighbour otherwise: a bilinear scale in software costs many times the plain copy of
+     * the full-resolution canvas it replaces, where pixel doubling costs about the same.
+     */
+    public static void blitScaled(Graphics2D g2, RenderBackend canvas, int x, int y, int divisor, Rectangle area) {
+        Object interpolation = g2.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                g2.getDeviceConfiguration().getImageCapabilities().isAccelerated()
+                        ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                        : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        canvas.blit(g2, x, y, area, divisor);
+        if (interpolation != null) {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+    }
+
+    private static BufferedImage createStaticImage(int width, int height) {
+        GraphicsConfiguration configuration = screenConfiguration();
+        // A new opaque image is black already
+        return configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private static void drawRing(BufferedImage cell, Sprite ring, int x, int y) {
+        Graphics2D g2 = cell.createGraphics();
+        ring.draw(g2, x, y);
+        g2.dispose();
+    }
+
+    private static GraphicsConfiguration screenConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+}
@@ -74,8 +74,22 @@
 
 // }
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Prints a heart of stars on red in the terminal, a row at a time.
+ *
+ * Usage: java Heart [--instant | --rows-per-second=N] [lines]
+ * Without lines it asks for them. Rows are paced by the clock at N rows per second (a row that
+ * falls behind is written together with the next), or all written at once with --instant, which
+ * reports the time taken on stderr; a 10,000-line heart takes well under a second to /dev/null.
+ *
+ * Every row is a few runs of spaces and stars, so it is built with {@link RunWriter}: one colour
+ * set/reset pair per run of stars rather than per star, and one write per buffer full.
+ */
 public class Heart {
     // Reset
     public static final String RESET = "\u001B[0m";  // Reset to default color
@@ -83,39 +97,88 @@ public class Heart {
     public static final String WHITE = "\u001B[37m";
     // Background Colors
     public static final String RED_BG = "\u001B[41m";
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
-        System.out.print("Enter the number of lines: ");
-        int line = sc.nextInt();
-        sc.close();
-        System.out.print("\n");
-        int temp = line;
-        // Upper heart
-        for (int i = line; i >= 0; i--) {
-            for (int j = 1; j <= i; j++) System.out.print(" ");
-            for (int j = temp - 1; j > i; j--) printStar();
-            for (int j = temp; j > i; j--) printStar();
-            for (int j = 1; j <= i; j++) System.out.print(" ");
-            for (int j = 1; j <= i; j++) System.out.print(" ");
-            for (int j = temp; j > i; j--) printStar();
-            for (int j = temp - 1; j > i; j--) printStar();
-            System.out.print("\n");
+
+    private static final byte[] STAR_STYLE = (RED_BG + WHITE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STAR_RESET = RESET.getBytes(StandardCharsets.US_ASCII);
+    private static final byte STAR = '*';
+    private static final byte SPACE = ' ';
+
+    private static final int DEFAULT_ROWS_PER_SECOND = 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public static void main(String[] args) throws IOException {
+        boolean instant = false;
+        int rowsPerSecond = DEFAULT_ROWS_PER_SECOND;
+        int line = -1;
+        for (String arg : args) {
+            if (arg.equals("--instant")) {
+                instant = true;
+            } else if (arg.startsWith("--rows-per-second=")) {
+                rowsPerSecond = Math.max(1, Integer.parseInt(arg.substring("--rows-per-second=".length())));
+            } else {
+                line = Integer.parseInt(arg);
+            }
         }
-        // Lower heart
-        for (int lp = 0; lp <= 2 * line - 1; lp++) {
-            for (int j = 0; j < lp; j++) System.out.print(" ");
-            for (int j = line * 2 - 2; j >= lp; j--) printStar();
-            for (int m = line * 2 - 2; m >= lp; m--) printStar();
-            System.out.print("\n");
+        if (line < 0) {
+            Scanner sc = new Scanner(System.in);
+            System.out.print("Enter the number of lines: ");
+            line = sc.nextInt();
+            sc.close();
+        }
+        System.out.flush();
+
+        RunWriter out = RunWriter.toStandardOutput(BUFFER_SIZE);
+        out.newline();
+        long start = System.nanoTime();
+        long rowNanos = 1_000_000_000L / rowsPerSecond;
+        int rows = rowCount(line);
+        for (int row = 0; row < rows; row++) {
+            appendRow(out, line, row);
+            if (!instant) {
+                // Show the rows written so far and wait for the next one's turn, unless it is due already
+                long wait = start + (row + 1) * rowNanos - System.nanoTime();
+                if (wait > 0) {
+                    out.flush();
+                    LockSupport.parkNanos(wait);
+                }
+            }
         }
+        out.flush();
+        if (instant) {
+            System.err.printf("%d rows, %.1f MB in %.1f ms%n",
+                    rows, out.written() / 1e6, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * The heart's row count: line + 1 rows of the two lobes, then 2 * line of the point.
+     */
+    static int rowCount(int line) {
+        return 3 * line + 1;
     }
-    // Function to print a star with delay
-    private static void printStar() {
-        try {
-            System.out.print(RED_BG + WHITE + "*" + RESET);
-            Thread.sleep(20); // Delay for typing effect
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Restore interrupted status
+
+    /**
+     * Appends one row of the heart and its newline.
+     */
+    static void appendRow(RunWriter out, int line, int row) throws IOException {
+        if (row <= line) {
+            // Upper heart: each lobe is 2 * (line - i) - 1 stars wide, the lobes 2 * i apart
+            int i = line - row;
+            int lobe = Math.max(0, line - 1 - i) + (line - i);
+            out.run(SPACE, i);
+            if (i == 0) {
+                out.run(STAR_STYLE, STAR, 2 * lobe, STAR_RESET); // the lobes meet
+            } else {
+                out.run(STAR_STYLE, STAR, lobe, STAR_RESET);
+                out.run(SPACE, 2 * i);
+                out.run(STAR_STYLE, STAR, lobe, STAR_RESET);
+            }
+        } else {
+            // Lower heart, narrowing by two stars a row
+            int lp = row - line - 1;
+            out.run(SPACE, lp);
+            out.run(STAR_STYLE, STAR, 2 * Math.max(0, 2 * line - 1 - lp), STAR_RESET);
         }
+        out.newline();
     }
-}
\ No newline at end of file
+}
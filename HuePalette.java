@@ -0,0 +1,46 @@
+import java.awt.Color;
+
+/**
+ * Precomputed fully saturated rainbow colours, so the animations don't call Color.getHSBColor
+ * and allocate a new Color on every step.
+ */
+public class HuePalette {
+
+    public static final int DEFAULT_SIZE = 360;
+
+    private final Color[] colors;
+
+    public HuePalette(int size) {
+        this(size, 255);
+    }
+
+    public HuePalette(int size, int alpha) {
+        colors = new Color[size];
+        for (int i = 0; i < size; i++) {
+            Color c = Color.getHSBColor((float) i / size, 1f, 1f);
+            colors[i] = alpha == 255 ? c : new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha);
+        }
+    }
+
+    /**
+     * The palette index for an angle in radians, wrapped to one turn of the colour wheel
+     * the same way the animations compute their hue.
+     */
+    public int indexForAngle(double angle) {
+        float hue = (float) (angle % (2 * Math.PI)) / (float) (2 * Math.PI);
+        int index = (int) (hue * colors.length);
+        return Math.min(Math.max(index, 0), colors.length - 1);
+    }
+
+    public Color colorForAngle(double angle) {
+        return colors[indexForAngle(angle)];
+    }
+
+    public int size() {
+        return colors.length;
+    }
+
+    public Color get(int index) {
+        return colors[index];
+    }
+}
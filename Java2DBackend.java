@@ -0,0 +1,112 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * The Java2D backend: a BufferedImage drawn on with Graphics2D (antialiased, round-capped
+ * strokes), blitted with drawImage. Fading still works on the image's pixels through TrailDecay,
+ * as Java2D has no blend that reliably fades to black.
+ */
+public class Java2DBackend implements RenderBackend {
+
+    private final int width;
+    private final int height;
+    private final TrailDecay decay;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Graphics2D g2;
+    private final PaintCache paints = new PaintCache();
+    private final ReusableSegment segment = new ReusableSegment();
+    private final Rectangle bounds;
+    private final CanvasPool pool;
+
+    public Java2DBackend(int width, int height, TrailDecay decay, boolean opaque) {
+        this(opaque
+                ? GridLayers.createOpaqueCanvas(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), decay, null);
+    }
+
+    /**
+     * A surface on a canvas from pool (or any TYPE_INT_RGB / TYPE_INT_ARGB canvas, with pool
+     * null), which dispose() hands back to it.
+     */
+    Java2DBackend(BufferedImage image, TrailDecay decay, CanvasPool pool) {
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.decay = decay;
+        this.image = image;
+        this.pool = pool;
+        pixels = TrailDecay.pixelsOf(image);
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        bounds = new Rectangle(0, 0, width, height);
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.JAVA2D;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pixels, 0, width * height, 0);
+    }
+
+    @Override
+    public void fade() {
+        decay.apply(pixels, width, height);
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1, float width, int argb) {
+        g2.setStroke(paints.stroke(width));
+        g2.setColor(paints.color(argb));
+        segment.setLine(x0, y0, x1, y1);
+        g2.draw(segment);
+    }
+
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, float width, int[] argb) {
+        paints.drawPolyline(g2, xs, ys, count, width, argb);
+    }
+
+    @Override
+    public void dot(Sprite sprite, int x, int y) {
+        sprite.draw(g2, x, y);
+    }
+
+    @Override
+    public Rectangle flush() {
+        return bounds;
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y) {
+        g2.drawImage(image, x, y, null);
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y, Rectangle area, int scale) {
+        g2.drawImage(image, x + area.x * scale, y + area.y * scale,
+                x + (area.x + area.width) * scale, y + (area.y + area.height) * scale,
+                area.x, area.y, area.x + area.width, area.y + area.height, null);
+    }
+
+    @Override
+    public void dispose() {
+        g2.dispose();
+        if (pool != null) {
+            pool.release(image);
+        }
+    }
+}
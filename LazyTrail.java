@@ -0,0 +1,298 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A trail canvas that fades lazily, for trails drawn by a single moving point where almost every
+ * pixel is idle on almost every step. Instead of running {@link TrailDecay#apply} over the whole
+ * canvas each step, it remembers for every pixel the step it was last written at, and works out
+ * the fade only when the pixel is drawn over again or composited for display. Per step the cost is
+ * the handful of pixels being drawn; per frame it is the pixels that are still lit, whose bounding
+ * box resolve() also hands back as the region to repaint.
+ *
+ * Each step: advance(), prepare() the rectangle about to be drawn on, then draw it into values()
+ * (or with Java2D into store()). Once per frame: resolve(), then paint image(). The displayed
+ * pixels are exactly what the eager fade would have left on the canvas.
+ *
+ * As a RenderBackend, fade() is advance(), and dot(), line() and polyline() prepare the pixels they cover
+ * themselves; flush() is resolve().
+ *
+ * Like TrailDecay it is not thread-safe: use it from one thread.
+ */
+public class LazyTrail implements RenderBackend {
+
+    private final int width;
+    private final int height;
+    private final TrailDecay decay;
+
+    // Pixel values as of the step in stamps[]; faded on the way out, in resolve()
+    private final BufferedImage store;
+    private final int[] values;
+    private final int[] stamps;
+    private int now;
+
+    // What the panel shows, brought up to date by resolve()
+    private final BufferedImage image;
+    private final int[] displayed;
+
+    // Indices of every pixel that is lit in values or on display (plus pixels prepared since the
+    // last resolve), in no particular order; listed[i] says whether pixel i is among them
+    private final int[] live;
+    private final boolean[] listed;
+    private int liveCount;
+    private boolean cleared;
+    private final Rectangle dirty = new Rectangle();
+
+    // For line(): Java2D drawing into the store, made on first use
+    private final boolean opaque;
+    private Graphics2D storeG;
+    private PaintCache paints;
+    private ReusableSegment segment;
+    // For polyline()
+    private LineRasterizer rasterizer;
+    private float rasterizerWidth;
+
+    public LazyTrail(int width, int height, TrailDecay decay) {
+        this(width, height, decay, false);
+    }
+
+    /**
+     * With opaque = true both canvases are TYPE_INT_RGB, black where nothing is lit.
+     */
+    public LazyTrail(int width, int height, TrailDecay decay, boolean opaque) {
+        this.width = width;
+        this.height = height;
+        this.decay = decay;
+        this.opaque = opaque;
+        store = createCanvas(width, height, opaque);
+        values = TrailDecay.pixelsOf(store);
+        stamps = new int[width * height];
+        image = createCanvas(width, height, opaque);
+        displayed = TrailDecay.pixelsOf(image);
+        live = new int[width * height];
+        listed = new boolean[width * height];
+    }
+
+    private static BufferedImage createCanvas(int width, int height, boolean opaque) {
+        return opaque
+                ? GridLayers.createOpaqueCanvas(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.LAZY;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The canvas to draw on with Java2D. Only the rectangle passed to prepare() may be drawn on.
+     */
+    public BufferedImage store() {
+        return store;
+    }
+
+    /**
+     * The pixels of store(), for drawing on directly; the same rule applies.
+     */
+    public int[] values() {
+        return values;
+    }
+
+    /**
+     * The faded trail as of the last resolve(), to be painted.
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Starts the next step: everything drawn so far has now been faded once more.
+     */
+    public void advance() {
+        now++;
+    }
+
+    /**
+     * Brings the w x h rectangle at (x, y) up to the current step so it can be drawn on. Anything
+     * drawn there has to fit the rectangle; it is clipped to the canvas.
+     */
+    public void prepare(int x, int y, int w, int h) {
+        int fromX = Math.max(0, x);
+        int fromY = Math.max(0, y);
+        int toX = Math.min(width, x + w);
+        int toY = Math.min(height, y + h);
+        if (fromX >= toX || fromY >= toY) {
+            return;
+        }
+        int now = this.now;
+        for (int row = fromY; row < toY; row++) {
+            for (int i = row * width + fromX, end = row * width + toX; i < end; i++) {
+                if (stamps[i] != now) {
+                    values[i] = decay.fade(values[i], now - stamps[i]);
+                    stamps[i] = now;
+                }
+                if (!listed[i]) {
+                    listed[i] = true;
+                    live[liveCount++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fades the lit part of the trail into image() and returns the region of it that changed,
+     * empty when nothing did. The rectangle is reused by the next call.
+     */
+    public Rectangle resolve() {
+        if (cleared) {
+            cleared = false;
+            Arrays.fill(displayed, 0);
+            dirty.setBounds(0, 0, width, height);
+            return dirty;
+        }
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        int now = this.now;
+        int kept = 0;
+        for (int n = 0; n < liveCount; n++) {
+            int i = live[n];
+            int value = values[i];
+            if (value != 0) {
+                value = decay.fade(value, now - stamps[i]);
+            }
+            if (value == 0) {
+                // Faded out: drop it from the list, and zero it so its stamp can never wrap around
+                // into a ghost while it is off the list
+                values[i] = 0;
+                listed[i] = false;
+                if (displayed[i] == 0) {
+                    continue;
+                }
+                displayed[i] = 0;
+            } else {
+                displayed[i] = value;
+                live[kept++] = i;
+            }
+            int x = i % width;
+            int y = i / width;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        liveCount = kept;
+        if (maxX < 0) {
+            dirty.setBounds(0, 0, 0, 0);
+        } else {
+            dirty.setBounds(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+        return dirty;
+    }
+
+    /**
+     * Erases the whole trail; the next resolve() repaints all of it.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(listed, false);
+        liveCount = 0;
+        cleared = true;
+    }
+
+    @Override
+    public void fade() {
+        advance();
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1, float width, int argb) {
+        prepareSegment(x0, y0, x1, y1, width);
+        Graphics2D g2 = storeGraphics();
+        g2.setStroke(paints.stroke(width));
+        g2.setColor(paints.color(argb));
+        segment.setLine(x0, y0, x1, y1);
+        g2.draw(segment);
+    }
+
+    // A batch is rasterized straight into values() like on a SOFTWARE surface, with no Graphics2D
+    // setup per segment. Each segment's pixels are prepared on their own, as the bounds of a long
+    // batch may cover most of the canvas.
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, float width, int[] argb) {
+        if (rasterizer == null || rasterizerWidth != width) {
+            rasterizer = new LineRasterizer(width, opaque);
+            rasterizerWidth = width;
+        }
+        for (int i = 0; i + 1 < count; i++) {
+            prepareSegment(xs[i], ys[i], xs[i + 1], ys[i + 1], width);
+            rasterizer.drawLine(values, this.width, height, xs[i], ys[i], xs[i + 1], ys[i + 1], argb[i]);
+        }
+    }
+
+    private void prepareSegment(double x0, double y0, double x1, double y1, float width) {
+        // Half the stroke, its round cap, and a pixel of antialiasing on either side
+        int reach = (int) Math.ceil(width / 2) + 2;
+        int left = (int) Math.floor(Math.min(x0, x1)) - reach;
+        int top = (int) Math.floor(Math.min(y0, y1)) - reach;
+        prepare(left, top, (int) Math.ceil(Math.max(x0, x1)) + reach + 1 - left,
+                (int) Math.ceil(Math.max(y0, y1)) + reach + 1 - top);
+    }
+
+    private Graphics2D storeGraphics() {
+        if (storeG == null) {
+            storeG = store.createGraphics();
+            storeG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            paints = new PaintCache();
+            segment = new ReusableSegment();
+        }
+        return storeG;
+    }
+
+    @Override
+    public void dispose() {
+        if (storeG != null) {
+            storeG.dispose();
+            storeG = null;
+        }
+    }
+
+    @Override
+    public void dot(Sprite sprite, int x, int y) {
+        prepare(x - sprite.getOffset(), y - sprite.getOffset(), sprite.getWidth(), sprite.getHeight());
+        if (opaque) {
+            sprite.stampOpaque(values, width, height, x, y);
+        } else {
+            sprite.stamp(values, width, height, x, y);
+        }
+    }
+
+    @Override
+    public Rectangle flush() {
+        return resolve();
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y) {
+        g2.drawImage(image, x, y, null);
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y, Rectangle area, int scale) {
+        g2.drawImage(image, x + area.x * scale, y + area.y * scale,
+                x + (area.x + area.width) * scale, y + (area.y + area.height) * scale,
+                area.x, area.y, area.x + area.width, area.y + area.height, null);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Antialiased line segments drawn straight into the int[] pixels of a TYPE_INT_ARGB canvas, for
+ * trails made of many tiny segments where Java2D's per-call setup (stroking, the AA pipeline)
+ * costs far more than the handful of pixels each segment touches.
+ *
+ * This is Xiaolin Wu's algorithm widened to an arbitrary stroke width: the line is walked one
+ * pixel at a time along its major axis, and at each step the span it covers on the minor axis
+ * (width / cos of the line's angle) is written with coverage-weighted alpha, so the two edge
+ * pixels get their fractional share. A width of 1 gives exactly Wu's two-pixel columns.
+ * Coordinates are pixel centres, like Java2D with stroke normalization; pixels outside the canvas
+ * are clipped. Colours are non-premultiplied ARGB blended SRC_OVER, as {@link Sprite#stamp} does;
+ * an opaque rasterizer blends onto an opaque canvas instead (TYPE_INT_RGB, black where empty).
+ *
+ * Nothing is allocated per call, and an instance holds no mutable state, so one can be shared.
+ */
+public class LineRasterizer {
+
+    private final double halfWidth;
+    private final boolean opaque;
+
+    public LineRasterizer(float width) {
+        this(width, false);
+    }
+
+    /**
+     * With opaque = true the pixels are those of an opaque canvas (see {@link GridLayers}), and
+     * lines are blended onto it as if it had no alpha.
+     */
+    public LineRasterizer(float width, boolean opaque) {
+        if (!(width > 0f)) {
+            throw new IllegalArgumentException("width must be positive: " + width);
+        }
+        this.halfWidth = width / 2.0;
+        this.opaque = opaque;
+    }
+
+    /**
+     * Draws count segments in one call. Segment i runs from (segments[4i], segments[4i + 1]) to
+     * (segments[4i + 2], segments[4i + 3]) in colour colors[i].
+     */
+    public void drawSegments(int[] pixels, int canvasWidth, int canvasHeight,
+                             float[] segments, int[] colors, int count) {
+        drawSegments(pixels, canvasWidth, canvasHeight, segments, colors, 0, count);
+    }
+
+    /**
+     * Draws segments first .. first + count - 1 of the batch, e.g. one band's share of it.
+     */
+    public void drawSegments(int[] pixels, int canvasWidth, int canvasHeight,
+                             float[] segments, int[] colors, int first, int count) {
+        for (int i = first, s = 4 * first, end = first + count; i < end; i++, s += 4) {
+            drawLine(pixels, canvasWidth, canvasHeight,
+                    segments[s], segments[s + 1], segments[s + 2], segments[s + 3], colors[i]);
+        }
+    }
+
+    public void drawLine(int[] pixels, int canvasWidth, int canvasHeight,
+                         double x0, double y0, double x1, double y1, int argb) {
+        boolean steep = Math.abs(y1 - y0) > Math.abs(x1 - x0);
+        // Walk along u (the major axis) and spread the width over v (the minor axis)
+        double u0 = steep ? y0 : x0;
+        double v0 = steep ? x0 : y0;
+        double u1 = steep ? y1 : x1;
+        double v1 = steep ? x1 : y1;
+        if (u0 > u1) {
+            double swap = u0;
+            u0 = u1;
+            u1 = swap;
+            swap = v0;
+            v0 = v1;
+            v1 = swap;
+        }
+        double gradient = u1 == u0 ? 0 : (v1 - v0) / (u1 - u0);
+        double halfSpan = halfWidth * Math.sqrt(1 + gradient * gradient);
+
+        int uLimit = steep ? canvasHeight : canvasWidth;
+        int vLimit = steep ? canvasWidth : canvasHeight;
+        // Truncation instead of Math.floor: the two only differ below zero, which is clipped anyway
+        int uFrom = Math.max(0, (int) (u0 + 0.5));
+        int uTo = Math.min(uLimit - 1, (int) (u1 + 0.5));
+        int alpha = argb >>> 24;
+        int rgb = argb & 0xFFFFFF;
+
+        double center = v0 + gradient * (uFrom - u0);
+        for (int u = uFrom; u <= uTo; u++, center += gradient) {
+            double top = center - halfSpan;
+            double bottom = center + halfSpan;
+            int vFrom = Math.max(0, (int) (top + 0.5));
+            int vTo = Math.min(vLimit - 1, (int) (bottom + 0.5));
+            for (int v = vFrom; v <= vTo; v++) {
+                // Length of [top, bottom] inside the pixel's [v - 0.5, v + 0.5]; plain comparisons,
+                // since Math.min/max on doubles pay for NaN and -0.0 handling
+                double pixelTop = v - 0.5;
+                double pixelBottom = v + 0.5;
+                double coverage = (bottom < pixelBottom ? bottom : pixelBottom) - (top > pixelTop ? top : pixelTop);
+                if (coverage <= 0) {
+                    continue;
+                }
+                int a = coverage >= 1 ? alpha : (int) (alpha * coverage + 0.5);
+                if (a == 0) {
+                    continue;
+                }
+                int index = steep ? u * canvasWidth + v : v * canvasWidth + u;
+                int src = (a << 24) | rgb;
+                pixels[index] = opaque ? Sprite.blendOpaque(src, pixels[index]) : Sprite.blend(src, pixels[index]);
+            }
+        }
+    }
+}
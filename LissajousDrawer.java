@@ -1,10 +1,10 @@
 
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import javax.swing.*;
 
-public class LissajousDrawer extends JPanel implements ActionListener {
+public class LissajousDrawer extends JPanel implements ActionListener, FrameSource {
 
     private static final int GRID_SIZE = 6;
     private static final int CELL_SIZE = 100;
@@ -12,53 +12,117 @@ public class LissajousDrawer extends JPanel implements ActionListener {
     private static final int WIDTH = MARGIN + GRID_SIZE * CELL_SIZE;
     private static final int HEIGHT = MARGIN + GRID_SIZE * CELL_SIZE;
 
-    private double t = 0;
-    private final Timer timer;
-    private final BufferedImage trailCanvas;
-    private final Graphics2D trailG;
+    // Prerendered circles; fillOval/drawOval allocate a new shape per call with antialiasing on
+    private static final Sprite GUIDE_RING = Sprite.ring(2 * (CELL_SIZE / 2 - 10), Color.DARK_GRAY);
+    private static final Sprite GUIDE_DOT = Sprite.disc(8, Color.WHITE);
+    private static final Sprite CURRENT_DOT = Sprite.disc(6, Color.WHITE);
+
+    // Guide circle i turns by (i + 1) * STEP_SIZE radians per step; the same oscillator drives the
+    // top and the left circle of that index
+    private static final double STEP_SIZE = 0.01;
+    private long step;
+    private final PhaseOscillator[] oscillators = new PhaseOscillator[GRID_SIZE];
+    private AnimationLoop timer;
+    private SimulationClock clock = SimulationClock.realTime();
+    private final FrameStats stats = new FrameStats("lissajous");
+    // The circle outlines are a static layer and the trail canvas is opaque, so a frame is two copies
+    // plus the moving dots and guide lines on top (see GridLayers)
+    private final GridLayers layers = new GridLayers(MARGIN, CELL_SIZE, CELL_SIZE / 2 - 10, GUIDE_RING);
+    // The trails never fade, so the canvas is made without a TrailDecay
+    private RenderBackend trails;
+
+    // On a SOFTWARE canvas the trail segments are rasterized straight into its pixels, one batch
+    // per step; other surfaces draw them one line() at a time
+    private static final float TRAIL_WIDTH = 1.2f;
+    private static final LineRasterizer TRAIL_LINES = new LineRasterizer(TRAIL_WIDTH, true);
+    private static final int[] TRAIL_ARGB = new int[GRID_SIZE * GRID_SIZE];
+    private final float[] trailSegments = new float[4 * GRID_SIZE * GRID_SIZE];
+
+    static {
+        Arrays.fill(TRAIL_ARGB, Color.GRAY.getRGB());
+    }
 
-    private final Point[][] previousPoints = new Point[GRID_SIZE][GRID_SIZE];
+    // Dot positions of the current and previous step; cell (row, col) sits at (dotX[col], dotY[row])
+    private final int[] verticalDotX = new int[GRID_SIZE];
+    private final int[] horizontalDotY = new int[GRID_SIZE];
+    private final int[] previousDotX = new int[GRID_SIZE];
+    private final int[] previousDotY = new int[GRID_SIZE];
+    private boolean hasPreviousDots;
 
     public LissajousDrawer() {
+        this(true);
+    }
+
+    LissajousDrawer(boolean animate) {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
         setBackground(Color.BLACK);
 
-        trailCanvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
-        trailG = trailCanvas.createGraphics();
-        trailG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        trailG.setStroke(new BasicStroke(1.2f));
-        trailG.setColor(Color.GRAY);
+        trails = RenderBackend.Kind.selected(RenderBackend.Kind.SOFTWARE).create(WIDTH, HEIGHT, null, true);
 
-        timer = new Timer(16, this);
-        timer.start();
+        for (int i = 0; i < GRID_SIZE; i++) {
+            oscillators[i] = new PhaseOscillator(i + 1, STEP_SIZE);
+        }
+        updateDotPositions();
+
+        timer = AnimationLoop.Kind.selected(AnimationLoop.Kind.SWING_TIMER).create(16, this, this);
+        if (animate) {
+            timer.start();
+        }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        renderFrame((Graphics2D) g);
+    }
 
-        Graphics2D g2 = (Graphics2D) g;
-        g2.drawImage(trailCanvas, 0, 0, null);
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setStroke(new BasicStroke(1f));
+    @Override
+    public int getFrameWidth() {
+        return WIDTH;
+    }
+
+    @Override
+    public int getFrameHeight() {
+        return HEIGHT;
+    }
 
-        int[] verticalDotX = new int[GRID_SIZE];
-        int[] horizontalDotY = new int[GRID_SIZE];
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        long start = stats.paintStarted();
+        paintGrid(g2);
+        stats.paintFinished(start);
+        stats.drawHud(g2);
+    }
 
+    // The layers of one frame: trails, static circles, then the moving dots and guide lines
+    private void paintGrid(Graphics2D g2) {
+        layers.drawTrails(g2, trails, 0, 0);
+        layers.drawTopStrip(g2, 0, GRID_SIZE - 1);
+        layers.drawLeftStrip(g2, 0, GRID_SIZE - 1);
+
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         for (int i = 0; i < GRID_SIZE; i++) {
-            verticalDotX[i] = drawGuideCircle(g2, i, true);   // top row
-            horizontalDotY[i] = drawGuideCircle(g2, i, false); // left column
+            drawGuide(g2, i, true);   // top row
+            drawGuide(g2, i, false); // left column
         }
 
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                int x = verticalDotX[col];
-                int y = horizontalDotY[row];
-                drawDot(g2, row, col, x, y);
+                CURRENT_DOT.draw(g2, verticalDotX[col] - 3, horizontalDotY[row] - 3);
             }
         }
     }
-    private int drawGuideCircle(Graphics2D g2, int index, boolean isTop) {
+
+    private void updateDotPositions() {
+        int radius = CELL_SIZE / 2 - 10;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            verticalDotX[i] = MARGIN + i * CELL_SIZE + CELL_SIZE / 2 + (int) (radius * oscillators[i].cos());
+            horizontalDotY[i] = MARGIN + i * CELL_SIZE + CELL_SIZE / 2 + (int) (radius * oscillators[i].sin());
+        }
+    }
+
+    // The moving dot on guide circle index and its guide line; the circle itself is in the static layer
+    private void drawGuide(Graphics2D g2, int index, boolean isTop) {
         int cx = isTop
                 ? MARGIN + index * CELL_SIZE + CELL_SIZE / 2
                 : MARGIN / 2;
@@ -68,46 +132,113 @@ public class LissajousDrawer extends JPanel implements ActionListener {
 
         int radius = CELL_SIZE / 2 - 10;
 
-        // Draw border circle
-        g2.setColor(Color.DARK_GRAY);
-        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
-
         // Circular motion (X and Y)
-        double angle = t * (index + 1);
-        int dotX = cx + (int) (radius * Math.cos(angle));
-        int dotY = cy + (int) (radius * Math.sin(angle));
+        int dotX = cx + (int) (radius * oscillators[index].cos());
+        int dotY = cy + (int) (radius * oscillators[index].sin());
 
-        g2.setColor(Color.WHITE);
-        g2.fillOval(dotX - 4, dotY - 4, 8, 8);
+        GUIDE_DOT.draw(g2, dotX - 4, dotY - 4);
 
+        // A one pixel wide rect on whole pixels covers exactly what the antialiased drawLine did, but
+        // skips the stroker; with antialiasing on, the translucent fill also allocates nothing
         g2.setColor(Color.LIGHT_GRAY);
         if (isTop) {
-            g2.drawLine(dotX, MARGIN, dotX, HEIGHT);
-            return dotX;
+            g2.fillRect(dotX, MARGIN, 1, HEIGHT - MARGIN + 1);
         } else {
-            g2.drawLine(MARGIN, dotY, WIDTH, dotY);
-            return dotY;
+            g2.fillRect(MARGIN, dotY, WIDTH - MARGIN + 1, 1);
         }
     }
 
-    private void drawDot(Graphics2D g2, int row, int col, int x, int y) {
-        Point prev = previousPoints[row][col];
-        if (prev != null) {
-            trailG.drawLine(prev.x, prev.y, x, y);
+    // Every cell's segment for this step in one call to the software rasterizer
+    private void drawTrailSegments(int[] pixels) {
+        int count = 0;
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int s = 4 * count++;
+                trailSegments[s] = previousDotX[col];
+                trailSegments[s + 1] = previousDotY[row];
+                trailSegments[s + 2] = verticalDotX[col];
+                trailSegments[s + 3] = horizontalDotY[row];
+            }
         }
+        TRAIL_LINES.drawSegments(pixels, WIDTH, HEIGHT, trailSegments, TRAIL_ARGB, count);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        stats.tick();
+        stepFrame();
+        repaint();
+    }
+
+    @Override
+    public void stepFrame() {
+        for (int steps = clock.stepsDue(); steps > 0; steps--) {
+            simulateStep();
+        }
+        stats.endFrame();
+    }
 
-        g2.setColor(Color.WHITE);
-        g2.fillOval(x - 3, y - 3, 6, 6);
+    @Override
+    public void setSimulationClock(SimulationClock clock) {
+        this.clock = clock;
+    }
 
-        previousPoints[row][col] = new Point(x, y);
+    @Override
+    public FrameStats getFrameStats() {
+        return stats;
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        t += 0.01;
+    public void setAnimationLoop(AnimationLoop.Kind kind) {
+        timer = kind.replace(timer, this, this);
+    }
+
+    @Override
+    public AnimationLoop getAnimationLoop() {
+        return timer;
+    }
+
+    // The trails start over on the new canvas
+    @Override
+    public void setRenderBackend(RenderBackend.Kind kind) {
+        trails.dispose();
+        trails = kind.create(WIDTH, HEIGHT, null, true);
         repaint();
     }
 
+    // How often the panel repaints; the simulation speed is set separately by the clock
+    public void setFrameRate(int framesPerSecond) {
+        timer.setDelay(Math.max(1, 1000 / framesPerSecond));
+    }
+
+    private void simulateStep() {
+        long time = System.nanoTime();
+        System.arraycopy(verticalDotX, 0, previousDotX, 0, GRID_SIZE);
+        System.arraycopy(horizontalDotY, 0, previousDotY, 0, GRID_SIZE);
+        step++;
+        for (PhaseOscillator oscillator : oscillators) {
+            oscillator.step();
+        }
+        updateDotPositions();
+        time = stats.lap(FrameStats.Stage.GUIDES, time);
+
+        if (hasPreviousDots) {
+            int[] pixels = trails.pixels();
+            if (pixels != null) {
+                drawTrailSegments(pixels);
+            } else {
+                for (int row = 0; row < GRID_SIZE; row++) {
+                    for (int col = 0; col < GRID_SIZE; col++) {
+                        trails.line(previousDotX[col], previousDotY[row], verticalDotX[col], horizontalDotY[row],
+                                TRAIL_WIDTH, TRAIL_ARGB[row * GRID_SIZE + col]);
+                    }
+                }
+            }
+        }
+        hasPreviousDots = true;
+        stats.lap(FrameStats.Stage.TRAILS, time);
+    }
+
     public static void main(String[] args) {
         JFrame frame = new JFrame("Lissajous Grid Drawer");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -1,57 +1,103 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 
-public class LissajousDrawerWithControls extends JPanel implements ActionListener {
+public class LissajousDrawerWithControls extends JPanel implements ActionListener, FrameSource {
 
     private int gridSize = 6;
+    // Only the cells in view are drawn, so the grid can be far larger than the screen
+    static final int MAX_GRID_SIZE = 200;
     private static final int CELL_SIZE = 100;
     private static final int MARGIN = CELL_SIZE;
+    private static final Color GUIDE_LINE_COLOR = new Color(255, 255, 255, 60);
+    // What GUIDE_LINE_COLOR comes to over black, for the plain guides of a lower quality level
+    private static final Color PLAIN_GUIDE_LINE_COLOR = new Color(60, 60, 60);
+    // The grid is resized once the size spinner has rested this long, not at every value it passes
+    private static final int RESIZE_DELAY_MS = 150;
+
+    // Prerendered circles; fillOval/drawOval allocate a new shape per call with antialiasing on
+    private static final Sprite GUIDE_RING = Sprite.ring(2 * (CELL_SIZE / 2 - 10), Color.DARK_GRAY);
+    private static final Sprite GUIDE_DOT = Sprite.disc(8, Color.WHITE);
+    private static final Sprite CURRENT_DOT = Sprite.disc(6, Color.WHITE);
     private int width = MARGIN + gridSize * CELL_SIZE;
     private int height = MARGIN + gridSize * CELL_SIZE;
 
-    private double t = 0;
-    private Timer timer;
-    private BufferedImage trailCanvas;
-    private Graphics2D trailG;
-
-    private Point[][] previousPoints;
+    // One oscillator per guide circle, turning by frequency * STEP_SIZE radians per step
+    private static final double STEP_SIZE = 0.01;
+    private long step;
+    private PhaseOscillator[] xOscillators;
+    private PhaseOscillator[] yOscillators;
+    private AnimationLoop timer;
+    private SimulationClock clock = SimulationClock.realTime();
+    private final FrameStats stats = new FrameStats("lissajous-controls");
+    // Lowers the quality when frames take too long, and raises it again (see QualityGovernor)
+    private final QualityGovernor quality = new QualityGovernor("lissajous-controls");
+
+    // Dot positions of the current step; cell (row, col) sits at (dotX[col], dotY[row])
+    private int[] verticalDotX;
+    private int[] horizontalDotY;
     private Color[][] trailColors;
 
     private int[] xFrequencies;
     private int[] yFrequencies;
 
     private float trailFadeAlpha = 0.02f;  // Slower fade = longer trail
+    private final TrailDecay trailDecay = new TrailDecay(trailFadeAlpha);
+
+    // Only the window of cells around the visible rectangle has a trail canvas; the rest of the
+    // grid is just dot positions until it is scrolled into view (see TrailViewport)
+    // The circle outlines are a static layer and the trail canvas is opaque, so a frame is a few
+    // copies plus the moving dots and guide lines on top (see GridLayers)
+    private final GridLayers layers = new GridLayers(MARGIN, CELL_SIZE, CELL_SIZE / 2 - 10, GUIDE_RING);
+    private final TrailViewport trails = new TrailViewport(MARGIN, CELL_SIZE, 1.5f, trailDecay);
+    private final Rectangle visibleRect = new Rectangle();
+    private final Rectangle clipRect = new Rectangle();
 
     public LissajousDrawerWithControls() {
+        this(true);
+    }
+
+    LissajousDrawerWithControls(boolean animate) {
         initGrid(gridSize);
         setPreferredSize(new Dimension(width, height));
         setBackground(Color.BLACK);
-        timer = new Timer(16, this);
-        timer.start();
+        timer = AnimationLoop.Kind.selected(AnimationLoop.Kind.SWING_TIMER).create(16, this, this);
+        if (animate) {
+            timer.start();
+        }
     }
 
+    // The columns and rows both sizes have keep their oscillators and trails; new ones start here.
+    // Frequencies are kept even for columns and rows the grid shrinks past, for when it grows back.
     private void initGrid(int newSize) {
+        boolean resize = xOscillators != null;
+        int kept = resize ? Math.min(gridSize, newSize) : 0;
         this.gridSize = newSize;
         this.width = MARGIN + gridSize * CELL_SIZE;
         this.height = MARGIN + gridSize * CELL_SIZE;
 
-        trailCanvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        trailG = trailCanvas.createGraphics();
-        trailG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        trailG.setStroke(new BasicStroke(1.5f));
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER));
-
-        previousPoints = new Point[gridSize][gridSize];
+        verticalDotX = new int[gridSize];
+        horizontalDotY = new int[gridSize];
         trailColors = new Color[gridSize][gridSize];
 
-        xFrequencies = new int[gridSize];
-        yFrequencies = new int[gridSize];
-        for (int i = 0; i < gridSize; i++) {
-            xFrequencies[i] = i + 1;
-            yFrequencies[i] = i + 1;
+        int known = resize ? xFrequencies.length : 0;
+        if (known < gridSize) {
+            xFrequencies = resize ? Arrays.copyOf(xFrequencies, gridSize) : new int[gridSize];
+            yFrequencies = resize ? Arrays.copyOf(yFrequencies, gridSize) : new int[gridSize];
+            for (int i = known; i < gridSize; i++) {
+                xFrequencies[i] = i + 1;
+                yFrequencies[i] = i + 1;
+            }
+        }
+        xOscillators = resize ? Arrays.copyOf(xOscillators, gridSize) : new PhaseOscillator[gridSize];
+        yOscillators = resize ? Arrays.copyOf(yOscillators, gridSize) : new PhaseOscillator[gridSize];
+        for (int i = kept; i < gridSize; i++) {
+            xOscillators[i] = new PhaseOscillator(xFrequencies[i], STEP_SIZE);
+            xOscillators[i].seedAtStep(step);
+            yOscillators[i] = new PhaseOscillator(yFrequencies[i], STEP_SIZE);
+            yOscillators[i].seedAtStep(step);
         }
 
         for (int row = 0; row < gridSize; row++) {
@@ -61,116 +107,237 @@ public class LissajousDrawerWithControls extends JPanel implements ActionListene
             }
         }
 
+        updateDotPositions();
+        if (resize) {
+            trails.resizeGrid(gridSize, trailColors, verticalDotX, horizontalDotY);
+        } else {
+            trails.setGrid(gridSize, trailColors);
+        }
+
         setPreferredSize(new Dimension(width, height));
         revalidate();
         repaint();
     }
 
     public void setGridSize(int newSize) {
-        initGrid(newSize);
+        if (newSize != gridSize) {
+            initGrid(newSize);
+        }
     }
 
     public void setXFrequency(int index, int value) {
         if (index >= 0 && index < xFrequencies.length) {
             xFrequencies[index] = value;
         }
+        if (index >= 0 && index < gridSize) {
+            // Only this circle jumps to its new angle, step * STEP_SIZE * value
+            xOscillators[index].setStepAngle(value * STEP_SIZE);
+            xOscillators[index].seedAtStep(step);
+        }
     }
 
     public void setYFrequency(int index, int value) {
         if (index >= 0 && index < yFrequencies.length) {
             yFrequencies[index] = value;
         }
+        if (index >= 0 && index < gridSize) {
+            // Only this circle jumps to its new angle, step * STEP_SIZE * value
+            yOscillators[index].setStepAngle(value * STEP_SIZE);
+            yOscillators[index].seedAtStep(step);
+        }
     }
 
     public void clearTrails() {
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
-        trailG.setColor(new Color(0, 0, 0, 255));
-        trailG.fillRect(0, 0, width, height);
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER));
-        for (int row = 0; row < gridSize; row++) {
-            for (int col = 0; col < gridSize; col++) {
-                previousPoints[row][col] = null;
-            }
-        }
+        trails.clear();
         repaint();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        renderFrame((Graphics2D) g);
+    }
 
-        Graphics2D g2 = (Graphics2D) g;
-        g2.drawImage(trailCanvas, 0, 0, null);
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setStroke(new BasicStroke(1f));
+    // Offline the frame is the top-left of the grid, no larger than a view of it on screen
+    @Override
+    public int getFrameWidth() {
+        return Math.min(width, TrailViewport.MAX_VIEW_WIDTH);
+    }
 
-        int[] verticalDotX = new int[gridSize];
-        int[] horizontalDotY = new int[gridSize];
+    @Override
+    public int getFrameHeight() {
+        return Math.min(height, TrailViewport.MAX_VIEW_HEIGHT);
+    }
 
-        for (int i = 0; i < gridSize; i++) {
-            verticalDotX[i] = drawGuideCircle(g2, i, true);
-            horizontalDotY[i] = drawGuideCircle(g2, i, false);
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        long start = stats.paintStarted();
+        // Scrolling while paused moves the window too, not only the next step
+        updateViewport();
+        paintGrid(g2);
+        stats.paintFinished(start);
+        // A deterministic run is meant to look the same every time, so it stays at one level
+        if (!clock.isDeterministic()) {
+            quality.frameFinished(stats.getLastFrameNanos());
         }
+        stats.drawHud(g2);
+    }
 
-        for (int row = 0; row < gridSize; row++) {
-            for (int col = 0; col < gridSize; col++) {
-                int x = verticalDotX[col];
-                int y = horizontalDotY[row];
-                drawTrailDot(trailG, row, col, x, y);
-                drawCurrentDot(g2, x, y);
+    // The layers of one frame: trails, static circles, then the moving dots and guide lines
+    private void paintGrid(Graphics2D g2) {
+        // Only the cells inside the clip are painted; offline there is no clip and that is all of them
+        clipRect.setBounds(0, 0, width, height);
+        Rectangle clip = g2.getClipBounds(clipRect);
+        int firstCol = Math.max(0, Math.floorDiv(clip.x - MARGIN, CELL_SIZE));
+        int lastCol = Math.min(gridSize - 1, Math.floorDiv(clip.x + clip.width - 1 - MARGIN, CELL_SIZE));
+        int firstRow = Math.max(0, Math.floorDiv(clip.y - MARGIN, CELL_SIZE));
+        int lastRow = Math.min(gridSize - 1, Math.floorDiv(clip.y + clip.height - 1 - MARGIN, CELL_SIZE));
+
+        trails.draw(g2);
+        if (clip.y < MARGIN) {
+            layers.drawTopStrip(g2, firstCol, lastCol);
+        }
+        if (clip.x < MARGIN) {
+            layers.drawLeftStrip(g2, firstRow, lastRow);
+        }
+
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, quality.getLevel().smoothGuides()
+                ? RenderingHints.VALUE_ANTIALIAS_ON
+                : RenderingHints.VALUE_ANTIALIAS_OFF);
+        for (int i = firstCol; i <= lastCol; i++) {
+            drawGuide(g2, i, true, clip.y < MARGIN);
+        }
+        for (int i = firstRow; i <= lastRow; i++) {
+            drawGuide(g2, i, false, clip.x < MARGIN);
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                drawCurrentDot(g2, verticalDotX[col], horizontalDotY[row]);
             }
         }
     }
 
-    private int drawGuideCircle(Graphics2D g2, int index, boolean isTop) {
+    private void updateDotPositions() {
+        int radius = CELL_SIZE / 2 - 10;
+        for (int i = 0; i < gridSize; i++) {
+            verticalDotX[i] = MARGIN + i * CELL_SIZE + CELL_SIZE / 2 + (int) (radius * xOscillators[i].cos());
+            horizontalDotY[i] = MARGIN + i * CELL_SIZE + CELL_SIZE / 2 + (int) (radius * yOscillators[i].sin());
+        }
+    }
+
+    // The moving dot on guide circle index and its guide line; the circle itself is in the static
+    // layer. circleVisible is false when the margin holding the circle is scrolled away; the line still shows
+    private void drawGuide(Graphics2D g2, int index, boolean isTop, boolean circleVisible) {
         int cx = isTop ? MARGIN + index * CELL_SIZE + CELL_SIZE / 2 : MARGIN / 2;
         int cy = isTop ? MARGIN / 2 : MARGIN + index * CELL_SIZE + CELL_SIZE / 2;
 
         int radius = CELL_SIZE / 2 - 10;
-        g2.setColor(Color.DARK_GRAY);
-        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
 
-        double angle = t * (isTop ? xFrequencies[index] : yFrequencies[index]);
-        int dotX = cx + (int) (radius * Math.cos(angle));
-        int dotY = cy + (int) (radius * Math.sin(angle));
+        PhaseOscillator oscillator = isTop ? xOscillators[index] : yOscillators[index];
+        int dotX = cx + (int) (radius * oscillator.cos());
+        int dotY = cy + (int) (radius * oscillator.sin());
 
-        g2.setColor(Color.WHITE);
-        g2.fillOval(dotX - 4, dotY - 4, 8, 8);
+        if (circleVisible) {
+            GUIDE_DOT.draw(g2, dotX - 4, dotY - 4);
+        }
 
-        g2.setColor(new Color(255, 255, 255, 60));
+        // A one pixel wide rect on whole pixels covers exactly what the antialiased drawLine did, but
+        // skips the stroker; with antialiasing on, the translucent fill also allocates nothing
+        g2.setColor(quality.getLevel().smoothGuides() ? GUIDE_LINE_COLOR : PLAIN_GUIDE_LINE_COLOR);
         if (isTop) {
-            g2.drawLine(dotX, MARGIN, dotX, height);
-            return dotX;
+            g2.fillRect(dotX, MARGIN, 1, height - MARGIN + 1);
         } else {
-            g2.drawLine(MARGIN, dotY, width, dotY);
-            return dotY;
+            g2.fillRect(MARGIN, dotY, width - MARGIN + 1, 1);
         }
     }
 
-    private void drawTrailDot(Graphics2D g2, int row, int col, int x, int y) {
-        Point prev = previousPoints[row][col];
-        g2.setColor(trailColors[row][col]);
-        if (prev != null) {
-            g2.drawLine(prev.x, prev.y, x, y);
+    private void drawCurrentDot(Graphics2D g2, int x, int y) {
+        CURRENT_DOT.draw(g2, x - 3, y - 3);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        stats.tick();
+        stepFrame();
+        repaint();
+    }
+
+    @Override
+    public void stepFrame() {
+        applyQuality();
+        updateViewport();
+        for (int steps = clock.stepsDue(); steps > 0; steps--) {
+            simulateStep();
         }
-        previousPoints[row][col] = new Point(x, y);
+        stats.endFrame();
     }
 
-    private void drawCurrentDot(Graphics2D g2, int x, int y) {
-        g2.setColor(Color.WHITE);
-        g2.fillOval(x - 3, y - 3, 6, 6);
+    @Override
+    public void setSimulationClock(SimulationClock clock) {
+        this.clock = clock;
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, trailFadeAlpha));
-        trailG.setColor(Color.BLACK);
-        trailG.fillRect(0, 0, width, height);
-        trailG.setComposite(AlphaComposite.SrcOver);
-        t += 0.01;
+    public FrameStats getFrameStats() {
+        return stats;
+    }
+
+    @Override
+    public void setAnimationLoop(AnimationLoop.Kind kind) {
+        timer = kind.replace(timer, this, this);
+    }
+
+    @Override
+    public AnimationLoop getAnimationLoop() {
+        return timer;
+    }
+
+    public QualityGovernor getQualityGovernor() {
+        return quality;
+    }
+
+    @Override
+    public void setRenderBackend(RenderBackend.Kind kind) {
+        trails.setRenderBackend(kind);
         repaint();
     }
 
+    // How often the panel repaints; the simulation speed is set separately by the clock
+    public void setFrameRate(int framesPerSecond) {
+        timer.setDelay(Math.max(1, 1000 / framesPerSecond));
+    }
+
+    // The governor's level for this frame: trail resolution and how far the clock may catch up
+    private void applyQuality() {
+        QualityGovernor.Level level = quality.getLevel();
+        trails.setResolution(level.trailDivisor());
+        clock.setSubStepLimit(level.subStepLimit());
+    }
+
+    // The window follows the scroll position; offline the panel is not showing and the frame is drawn
+    private void updateViewport() {
+        if (isShowing()) {
+            computeVisibleRect(visibleRect);
+        } else {
+            visibleRect.setBounds(0, 0, getFrameWidth(), getFrameHeight());
+        }
+        trails.setVisibleRect(visibleRect);
+    }
+
+    private void simulateStep() {
+        long time = System.nanoTime();
+        step++;
+        for (int i = 0; i < gridSize; i++) {
+            xOscillators[i].step();
+            yOscillators[i].step();
+        }
+        updateDotPositions();
+        time = stats.lap(FrameStats.Stage.GUIDES, time);
+        trails.step(verticalDotX, horizontalDotY);
+        stats.lap(FrameStats.Stage.TRAILS, time);
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("🎨 Lissajous Art - Controls Enabled");
@@ -179,6 +346,9 @@ public class LissajousDrawerWithControls extends JPanel implements ActionListene
 
             LissajousDrawerWithControls panel = new LissajousDrawerWithControls();
             JScrollPane scrollPane = new JScrollPane(panel);
+            // Large grids are many screens wide; scroll a quarter cell per wheel notch, not a pixel
+            scrollPane.getHorizontalScrollBar().setUnitIncrement(CELL_SIZE / 4);
+            scrollPane.getVerticalScrollBar().setUnitIncrement(CELL_SIZE / 4);
 
             JPanel controlPanel = new JPanel(new GridLayout(0, 1));
             controlPanel.setBackground(Color.BLACK);
@@ -190,6 +360,7 @@ public class LissajousDrawerWithControls extends JPanel implements ActionListene
                     panel.timer.stop();
                     toggleBtn.setText("▶️ Resume");
                 } else {
+                    panel.clock.reset();
                     panel.timer.start();
                     toggleBtn.setText("⏸️ Pause");
                 }
@@ -208,18 +379,23 @@ public class LissajousDrawerWithControls extends JPanel implements ActionListene
             JLabel gridLabel = new JLabel("Grid Size:");
             gridLabel.setForeground(Color.WHITE);
             gridSizePanel.add(gridLabel);
-            JSpinner gridSizeSpinner = new JSpinner(new SpinnerNumberModel(6, 1, 12, 1));
+            JSpinner gridSizeSpinner = new JSpinner(new SpinnerNumberModel(6, 1, MAX_GRID_SIZE, 1));
             gridSizePanel.add(gridSizeSpinner);
             controlPanel.add(gridSizePanel);
 
-            gridSizeSpinner.addChangeListener(e -> {
+            Timer resize = new Timer(RESIZE_DELAY_MS, e -> {
                 int newSize = (int) gridSizeSpinner.getValue();
                 panel.setGridSize(newSize);
+                // Fit small grids, but scroll large ones rather than opening a window the grid's size
+                scrollPane.getViewport().setPreferredSize(TrailViewport.viewSize(panel.getPreferredSize()));
                 frame.pack();
             });
+            resize.setRepeats(false);
+            gridSizeSpinner.addChangeListener(e -> resize.restart());
 
             frame.add(controlPanel, BorderLayout.WEST);
             frame.add(scrollPane, BorderLayout.CENTER);
+            scrollPane.getViewport().setPreferredSize(TrailViewport.viewSize(panel.getPreferredSize()));
             frame.pack();
             frame.setLocationRelativeTo(null);
             frame.setVisible(true);
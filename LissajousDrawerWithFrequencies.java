@@ -1,63 +1,135 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 
-public class LissajousDrawerWithFrequencies extends JPanel implements ActionListener {
+public class LissajousDrawerWithFrequencies extends JPanel implements ActionListener, FrameSource {
 
     private int gridSize = 6;
+    // Trails are stepped in parallel bands of cell rows, so grids beyond 12 stay smooth on multicore
+    static final int MAX_GRID_SIZE = 24;
     private static final int CELL_SIZE = 100;
     private static final int MARGIN = CELL_SIZE;
+    private static final Color GUIDE_LINE_COLOR = new Color(255, 255, 255, 60);
+    // What GUIDE_LINE_COLOR comes to over black, for the plain guides of a lower quality level
+    private static final Color PLAIN_GUIDE_LINE_COLOR = new Color(60, 60, 60);
+    // The grid is resized once the size spinner has rested this long, not at every value it passes
+    private static final int RESIZE_DELAY_MS = 150;
+
+    // Prerendered circles; fillOval/drawOval allocate a new shape per call with antialiasing on
+    private static final Sprite GUIDE_RING = Sprite.ring(2 * (CELL_SIZE / 2 - 10), Color.DARK_GRAY);
+    private static final Sprite GUIDE_DOT = Sprite.disc(8, Color.WHITE);
+    private static final Sprite CURRENT_DOT = Sprite.disc(6, Color.WHITE);
     private int width = MARGIN + gridSize * CELL_SIZE;
     private int height = MARGIN + gridSize * CELL_SIZE;
 
-    private double t = 0;
-    private Timer timer;
-    private BufferedImage trailCanvas;
-    private Graphics2D trailG;
-
-    private Point[][] previousPoints;
-    private Color[][] trailColors;
-
-    private int[] xFrequencies;
-    private int[] yFrequencies;
+    // One oscillator per guide circle, turning by frequency * STEP_SIZE radians per step
+    private static final double STEP_SIZE = 0.01;
+    private long step;
+    private PhaseOscillator[] xOscillators;
+    private PhaseOscillator[] yOscillators;
+    private AnimationLoop timer;
+    private SimulationClock clock = SimulationClock.realTime();
+    private final FrameStats stats = new FrameStats("lissajous-frequencies");
+    // Lowers the quality when frames take too long, and raises it again (see QualityGovernor)
+    private final QualityGovernor quality = new QualityGovernor("lissajous-frequencies");
+    // The circle outlines are a static layer and the trail canvas is opaque, so a frame is two copies
+    // plus the moving dots and guide lines on top (see GridLayers)
+    private final GridLayers layers = new GridLayers(MARGIN, CELL_SIZE, CELL_SIZE / 2 - 10, GUIDE_RING);
+    private RenderBackend.Kind backendKind = RenderBackend.Kind.selected(RenderBackend.Kind.SOFTWARE);
+    private RenderBackend trails;
+    // Canvases of grids the spinner went through, so that going back and forth between sizes
+    // settles on reusing two arrays rather than allocating megabytes per change
+    private final CanvasPool canvasPool = new CanvasPool(2);
+    private final TrailDecay trailDecay = new TrailDecay(0.05f);
+
+    // Dot positions of the current and previous step; cell (row, col) sits at (dotX[col], dotY[row])
+    private int[] verticalDotX;
+    private int[] horizontalDotY;
+    private int[] previousDotX;
+    private int[] previousDotY;
+    private boolean hasPreviousDots;
+
+    // On a SOFTWARE canvas the trail segments are rasterized straight into its pixels, faded and
+    // drawn in parallel bands of cell rows; other surfaces fade() and draw one line() per cell
+    private static final float TRAIL_WIDTH = 1.5f;
+    private static final LineRasterizer TRAIL_LINES = new LineRasterizer(TRAIL_WIDTH, true);
+    // For half-resolution trails; as thin on the canvas as TRAIL_LINES once scaled up
+    private static final LineRasterizer HALF_TRAIL_LINES = new LineRasterizer(TRAIL_WIDTH / 2, true);
+    private TrailBands trailBands = new TrailBands(trailDecay, TRAIL_LINES, CELL_SIZE);
+
+    // Instant figures: each cell's whole figure (from the shared LissajousFigures) is drawn at once,
+    // dimmed, into a floor the trail canvas never fades below, and the moving trail runs over it
+    public static final String INSTANT_PROPERTY = "lissajous.instant";
+    private static final float FIGURE_BRIGHTNESS = 0.35f;
+    private boolean instantFigures = Boolean.getBoolean(INSTANT_PROPERTY);
+    private int[] figureFloor;
+    private int[] trailArgb;
+    // The trail canvas is 1 / trailDivisor of the panel in each direction
+    private int trailDivisor = 1;
+
+    // One per spinner, whether or not its column or row is in the grid at the moment
+    private final int[] xFrequencies = new int[MAX_GRID_SIZE];
+    private final int[] yFrequencies = new int[MAX_GRID_SIZE];
 
     public LissajousDrawerWithFrequencies() {
+        this(true);
+    }
+
+    LissajousDrawerWithFrequencies(boolean animate) {
+        for (int i = 0; i < MAX_GRID_SIZE; i++) {
+            xFrequencies[i] = i + 1;
+            yFrequencies[i] = i + 1;
+        }
         initGrid(gridSize);
         setPreferredSize(new Dimension(width, height));
         setBackground(Color.BLACK);
-        timer = new Timer(16, this);
-        timer.start();
+        timer = AnimationLoop.Kind.selected(AnimationLoop.Kind.SWING_TIMER).create(16, this, this);
+        if (animate) {
+            timer.start();
+        }
     }
 
+    // The columns and rows both sizes have keep their oscillators and, where both canvases have
+    // pixels, their trails; new ones start at the frequency their spinner shows, with no trail
     private void initGrid(int newSize) {
+        int kept = xOscillators == null ? 0 : Math.min(gridSize, newSize);
         this.gridSize = newSize;
         this.width = MARGIN + gridSize * CELL_SIZE;
         this.height = MARGIN + gridSize * CELL_SIZE;
 
-        trailCanvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        trailG = trailCanvas.createGraphics();
-        trailG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        trailG.setStroke(new BasicStroke(1.5f));
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER));
-
-        previousPoints = new Point[gridSize][gridSize];
-        trailColors = new Color[gridSize][gridSize];
+        RenderBackend previous = trails;
+        trails = backendKind.create(width / trailDivisor, height / trailDivisor, trailDecay, true, canvasPool);
+        if (previous != null) {
+            copyTrails(previous, trails, (MARGIN + kept * CELL_SIZE) / trailDivisor);
+            previous.dispose();
+        }
 
-        xFrequencies = new int[gridSize];
-        yFrequencies = new int[gridSize];
-        for (int i = 0; i < gridSize; i++) {
-            xFrequencies[i] = i + 1;
-            yFrequencies[i] = i + 1;
+        verticalDotX = new int[gridSize];
+        horizontalDotY = new int[gridSize];
+        previousDotX = new int[gridSize];
+        previousDotY = new int[gridSize];
+        trailArgb = new int[gridSize * gridSize];
+
+        xOscillators = kept == 0 ? new PhaseOscillator[gridSize] : Arrays.copyOf(xOscillators, gridSize);
+        yOscillators = kept == 0 ? new PhaseOscillator[gridSize] : Arrays.copyOf(yOscillators, gridSize);
+        for (int i = kept; i < gridSize; i++) {
+            xOscillators[i] = new PhaseOscillator(xFrequencies[i], STEP_SIZE);
+            xOscillators[i].seedAtStep(step);
+            yOscillators[i] = new PhaseOscillator(yFrequencies[i], STEP_SIZE);
+            yOscillators[i].seedAtStep(step);
         }
 
         for (int row = 0; row < gridSize; row++) {
             for (int col = 0; col < gridSize; col++) {
                 float hue = (float) (row * gridSize + col) / (gridSize * gridSize);
-                trailColors[row][col] = Color.getHSBColor(hue, 1f, 1f);
+                trailArgb[row * gridSize + col] = Color.HSBtoRGB(hue, 1f, 1f);
             }
         }
+        attachBands();
+
+        updateDotPositions();
 
         setPreferredSize(new Dimension(width, height));
         revalidate();
@@ -65,98 +137,342 @@ public class LissajousDrawerWithFrequencies extends JPanel implements ActionList
     }
 
     public void setGridSize(int newSize) {
-        initGrid(newSize);
+        if (newSize != gridSize) {
+            initGrid(newSize);
+        }
+    }
+
+    // The top-left size x size pixels, which hold the trails of the cells both grids have; the
+    // trails start over if either surface keeps its pixels out of reach
+    private static void copyTrails(RenderBackend from, RenderBackend to, int size) {
+        int[] source = from.pixels();
+        int[] target = to.pixels();
+        if (source == null || target == null) {
+            return;
+        }
+        int rows = Math.min(size, Math.min(from.getHeight(), to.getHeight()));
+        int span = Math.min(size, Math.min(from.getWidth(), to.getWidth()));
+        for (int y = 0; y < rows; y++) {
+            System.arraycopy(source, y * from.getWidth(), target, y * to.getWidth(), span);
+        }
     }
 
     public void setXFrequency(int index, int value) {
         if (index >= 0 && index < xFrequencies.length) {
             xFrequencies[index] = value;
         }
+        if (index >= 0 && index < gridSize) {
+            // Only this circle jumps to its new angle, step * STEP_SIZE * value
+            xOscillators[index].setStepAngle(value * STEP_SIZE);
+            xOscillators[index].seedAtStep(step);
+            stampFigures(0, gridSize, index, index + 1);
+        }
     }
 
     public void setYFrequency(int index, int value) {
         if (index >= 0 && index < yFrequencies.length) {
             yFrequencies[index] = value;
         }
+        if (index >= 0 && index < gridSize) {
+            // Only this circle jumps to its new angle, step * STEP_SIZE * value
+            yOscillators[index].setStepAngle(value * STEP_SIZE);
+            yOscillators[index].seedAtStep(step);
+            stampFigures(index, index + 1, 0, gridSize);
+        }
+    }
+
+    /**
+     * Shows every cell's whole figure straight away instead of only the trail the dot leaves,
+     * redrawn whenever a frequency or the grid changes. Only on canvases with pixels (SOFTWARE);
+     * elsewhere the trails are all there is. Off unless the lissajous.instant property is true.
+     */
+    public void setInstantFigures(boolean instant) {
+        instantFigures = instant;
+        stampFigures(0, gridSize, 0, gridSize);
+        repaint();
+    }
+
+    public boolean isInstantFigures() {
+        return instantFigures;
+    }
+
+    // Redraws the figures of cells [fromRow, toRow) x [fromCol, toCol) into the floor, which the
+    // trail canvas is then raised to at once; with instant figures off the floor goes away
+    private void stampFigures(int fromRow, int toRow, int fromCol, int toCol) {
+        int[] pixels = trails.pixels();
+        if (!instantFigures || pixels == null) {
+            figureFloor = null;
+            trailBands.setFloor(null);
+            return;
+        }
+        int canvasWidth = trails.getWidth();
+        int canvasHeight = trails.getHeight();
+        int size = canvasWidth * canvasHeight;
+        if (figureFloor == null || figureFloor.length < size) {
+            figureFloor = new int[size];
+        } else if (fromRow == 0 && toRow == gridSize && fromCol == 0 && toCol == gridSize) {
+            // The canvas may be a new one, with another width
+            Arrays.fill(figureFloor, 0, size, 0);
+        }
+
+        double scale = 1.0 / trailDivisor;
+        int cellPixels = CELL_SIZE / trailDivisor;
+        LineRasterizer lines = trailDivisor == 1 ? TRAIL_LINES : HALF_TRAIL_LINES;
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = fromCol; col < toCol; col++) {
+                // Each figure stays inside its own cell (see TrailBands), so a cell is cleared alone
+                int left = (MARGIN + col * CELL_SIZE) / trailDivisor;
+                int top = (MARGIN + row * CELL_SIZE) / trailDivisor;
+                for (int y = top; y < top + cellPixels; y++) {
+                    Arrays.fill(figureFloor, y * canvasWidth + left, y * canvasWidth + left + cellPixels, 0);
+                }
+                LissajousFigures.Figure figure = LissajousFigures.shared()
+                        .get(xFrequencies[col], yFrequencies[row], (CELL_SIZE / 2 - 10) * scale);
+                figure.stamp(lines, figureFloor, canvasWidth, canvasHeight,
+                        left + CELL_SIZE / 2 * scale, top + CELL_SIZE / 2 * scale,
+                        dim(trailArgb[row * gridSize + col]));
+            }
+        }
+        trailBands.setFloor(figureFloor);
+        TrailDecay.raise(pixels, figureFloor, size);
+    }
+
+    private static int dim(int argb) {
+        int red = (int) (((argb >> 16) & 0xFF) * FIGURE_BRIGHTNESS);
+        int green = (int) (((argb >> 8) & 0xFF) * FIGURE_BRIGHTNESS);
+        int blue = (int) ((argb & 0xFF) * FIGURE_BRIGHTNESS);
+        return (argb & 0xFF000000) | red << 16 | green << 8 | blue;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        renderFrame((Graphics2D) g);
+    }
 
-        Graphics2D g2 = (Graphics2D) g;
-        g2.drawImage(trailCanvas, 0, 0, null);
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setStroke(new BasicStroke(1f));
+    @Override
+    public int getFrameWidth() {
+        return width;
+    }
 
-        int[] verticalDotX = new int[gridSize];
-        int[] horizontalDotY = new int[gridSize];
+    @Override
+    public int getFrameHeight() {
+        return height;
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        long start = stats.paintStarted();
+        paintGrid(g2);
+        stats.paintFinished(start);
+        // A deterministic run is meant to look the same every time, so it stays at one level
+        if (!clock.isDeterministic()) {
+            quality.frameFinished(stats.getLastFrameNanos());
+        }
+        stats.drawHud(g2);
+    }
+
+    // The layers of one frame: trails, static circles, then the moving dots and guide lines
+    private void paintGrid(Graphics2D g2) {
+        layers.drawTrails(g2, trails, 0, 0, trailDivisor);
+        layers.drawTopStrip(g2, 0, gridSize - 1);
+        layers.drawLeftStrip(g2, 0, gridSize - 1);
 
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, quality.getLevel().smoothGuides()
+                ? RenderingHints.VALUE_ANTIALIAS_ON
+                : RenderingHints.VALUE_ANTIALIAS_OFF);
         for (int i = 0; i < gridSize; i++) {
-            verticalDotX[i] = drawGuideCircle(g2, i, true);
-            horizontalDotY[i] = drawGuideCircle(g2, i, false);
+            drawGuide(g2, i, true);
+            drawGuide(g2, i, false);
         }
 
         for (int row = 0; row < gridSize; row++) {
             for (int col = 0; col < gridSize; col++) {
-                int x = verticalDotX[col];
-                int y = horizontalDotY[row];
-                drawTrailDot(trailG, row, col, x, y);
-                drawCurrentDot(g2, x, y);
+                drawCurrentDot(g2, verticalDotX[col], horizontalDotY[row]);
             }
         }
     }
 
-    private int drawGuideCircle(Graphics2D g2, int index, boolean isTop) {
+    private void updateDotPositions() {
+        int radius = CELL_SIZE / 2 - 10;
+        for (int i = 0; i < gridSize; i++) {
+            verticalDotX[i] = MARGIN + i * CELL_SIZE + CELL_SIZE / 2 + (int) (radius * xOscillators[i].cos());
+            horizontalDotY[i] = MARGIN + i * CELL_SIZE + CELL_SIZE / 2 + (int) (radius * yOscillators[i].sin());
+        }
+    }
+
+    // The moving dot on guide circle index and its guide line; the circle itself is in the static layer
+    private void drawGuide(Graphics2D g2, int index, boolean isTop) {
         int cx = isTop ? MARGIN + index * CELL_SIZE + CELL_SIZE / 2 : MARGIN / 2;
         int cy = isTop ? MARGIN / 2 : MARGIN + index * CELL_SIZE + CELL_SIZE / 2;
 
         int radius = CELL_SIZE / 2 - 10;
 
-        g2.setColor(Color.DARK_GRAY);
-        g2.drawOval(cx - radius, cy - radius, radius * 2, radius * 2);
-
-        double angle = t * (isTop ? xFrequencies[index] : yFrequencies[index]);
-        int dotX = cx + (int) (radius * Math.cos(angle));
-        int dotY = cy + (int) (radius * Math.sin(angle));
+        PhaseOscillator oscillator = isTop ? xOscillators[index] : yOscillators[index];
+        int dotX = cx + (int) (radius * oscillator.cos());
+        int dotY = cy + (int) (radius * oscillator.sin());
 
-        g2.setColor(Color.WHITE);
-        g2.fillOval(dotX - 4, dotY - 4, 8, 8);
+        GUIDE_DOT.draw(g2, dotX - 4, dotY - 4);
 
-        g2.setColor(new Color(255, 255, 255, 60));
+        // A one pixel wide rect on whole pixels covers exactly what the antialiased drawLine did, but
+        // skips the stroker; with antialiasing on, the translucent fill also allocates nothing
+        g2.setColor(quality.getLevel().smoothGuides() ? GUIDE_LINE_COLOR : PLAIN_GUIDE_LINE_COLOR);
         if (isTop) {
-            g2.drawLine(dotX, MARGIN, dotX, height);
-            return dotX;
+            g2.fillRect(dotX, MARGIN, 1, height - MARGIN + 1);
         } else {
-            g2.drawLine(MARGIN, dotY, width, dotY);
-            return dotY;
+            g2.fillRect(MARGIN, dotY, width - MARGIN + 1, 1);
         }
     }
 
-    private void drawTrailDot(Graphics2D g2, int row, int col, int x, int y) {
-        Point prev = previousPoints[row][col];
-        g2.setColor(trailColors[row][col]);
-        if (prev != null) {
-            g2.drawLine(prev.x, prev.y, x, y);
-        }
-        previousPoints[row][col] = new Point(x, y);
-    }
-
     private void drawCurrentDot(Graphics2D g2, int x, int y) {
-        g2.setColor(Color.WHITE);
-        g2.fillOval(x - 3, y - 3, 6, 6);
+        CURRENT_DOT.draw(g2, x - 3, y - 3);
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.05f));
-        trailG.setColor(Color.BLACK);
-        trailG.fillRect(0, 0, width, height);
-        trailG.setComposite(AlphaComposite.SrcOver);
-        t += 0.01;
+        stats.tick();
+        stepFrame();
         repaint();
     }
 
+    @Override
+    public void stepFrame() {
+        applyQuality();
+        for (int steps = clock.stepsDue(); steps > 0; steps--) {
+            simulateStep();
+        }
+        stats.endFrame();
+    }
+
+    @Override
+    public void setSimulationClock(SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public FrameStats getFrameStats() {
+        return stats;
+    }
+
+    @Override
+    public void setAnimationLoop(AnimationLoop.Kind kind) {
+        timer = kind.replace(timer, this, this);
+    }
+
+    @Override
+    public AnimationLoop getAnimationLoop() {
+        return timer;
+    }
+
+    public QualityGovernor getQualityGovernor() {
+        return quality;
+    }
+
+    // Points the bands at the trail canvas, if it has pixels, and draws any instant figures on it
+    private void attachBands() {
+        if (trails.pixels() != null) {
+            trailBands.setGrid(trails.pixels(), trails.getWidth(), trails.getHeight(), gridSize, gridSize, MARGIN,
+                    trailArgb, 1f / trailDivisor);
+        }
+        stampFigures(0, gridSize, 0, gridSize);
+    }
+
+    // The governor's level for this frame: trail resolution and how far the clock may catch up
+    private void applyQuality() {
+        QualityGovernor.Level level = quality.getLevel();
+        if (level.trailDivisor() != trailDivisor) {
+            setTrailDivisor(level.trailDivisor());
+        }
+        clock.setSubStepLimit(level.subStepLimit());
+    }
+
+    // Moves the trails to a canvas of the given resolution, resampled where both have pixels
+    private void setTrailDivisor(int divisor) {
+        RenderBackend previous = trails;
+        boolean halving = divisor > trailDivisor;
+        trailDivisor = divisor;
+        trails = backendKind.create(width / divisor, height / divisor, trailDecay, true, canvasPool);
+        resampleTrails(previous, trails, halving);
+        previous.dispose();
+        trailBands = new TrailBands(trailDecay, divisor == 1 ? TRAIL_LINES : HALF_TRAIL_LINES, CELL_SIZE);
+        attachBands();
+    }
+
+    // Going down to half resolution each pixel is the average of the 2 x 2 it replaces; going back
+    // up each pixel is doubled
+    private static void resampleTrails(RenderBackend from, RenderBackend to, boolean halving) {
+        int[] source = from.pixels();
+        int[] target = to.pixels();
+        if (source == null || target == null) {
+            return;
+        }
+        int width = to.getWidth();
+        int height = to.getHeight();
+        int sourceWidth = from.getWidth();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (halving) {
+                    int i = 2 * y * sourceWidth + 2 * x;
+                    target[y * width + x] = average(source[i], source[i + 1],
+                            source[i + sourceWidth], source[i + sourceWidth + 1]);
+                } else {
+                    target[y * width + x] = source[(y / 2) * sourceWidth + x / 2];
+                }
+            }
+        }
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int red = ((a >> 16 & 0xFF) + (b >> 16 & 0xFF) + (c >> 16 & 0xFF) + (d >> 16 & 0xFF) + 2) >> 2;
+        int green = ((a >> 8 & 0xFF) + (b >> 8 & 0xFF) + (c >> 8 & 0xFF) + (d >> 8 & 0xFF) + 2) >> 2;
+        int blue = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) >> 2;
+        return red << 16 | green << 8 | blue;
+    }
+
+    // The trails carry over if both canvases have pixels (see copyTrails), and start over otherwise
+    @Override
+    public void setRenderBackend(RenderBackend.Kind kind) {
+        backendKind = kind;
+        initGrid(gridSize);
+    }
+
+    // How often the panel repaints; the simulation speed is set separately by the clock
+    public void setFrameRate(int framesPerSecond) {
+        timer.setDelay(Math.max(1, 1000 / framesPerSecond));
+    }
+
+    private void simulateStep() {
+        long time = System.nanoTime();
+        System.arraycopy(verticalDotX, 0, previousDotX, 0, gridSize);
+        System.arraycopy(horizontalDotY, 0, previousDotY, 0, gridSize);
+        step++;
+        for (int i = 0; i < gridSize; i++) {
+            xOscillators[i].step();
+            yOscillators[i].step();
+        }
+        updateDotPositions();
+        time = stats.lap(FrameStats.Stage.GUIDES, time);
+
+        if (trails.pixels() != null) {
+            trailBands.step(previousDotX, previousDotY, verticalDotX, horizontalDotY, hasPreviousDots);
+        } else {
+            trails.fade();
+            time = stats.lap(FrameStats.Stage.FADE, time);
+            if (hasPreviousDots) {
+                double scale = 1.0 / trailDivisor;
+                for (int row = 0; row < gridSize; row++) {
+                    for (int col = 0; col < gridSize; col++) {
+                        trails.line(previousDotX[col] * scale, previousDotY[row] * scale,
+                                verticalDotX[col] * scale, horizontalDotY[row] * scale,
+                                (float) (TRAIL_WIDTH * scale), trailArgb[row * gridSize + col]);
+                    }
+                }
+            }
+        }
+        hasPreviousDots = true;
+        stats.lap(FrameStats.Stage.TRAILS, time);
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("Lissajous with Custom Frequencies");
@@ -175,17 +491,19 @@ public class LissajousDrawerWithFrequencies extends JPanel implements ActionList
             JLabel label = new JLabel("Grid Size:");
             label.setForeground(Color.WHITE);
             gridSizePanel.add(label);
-            JSpinner gridSizeSpinner = new JSpinner(new SpinnerNumberModel(6, 1, 12, 1));
+            JSpinner gridSizeSpinner = new JSpinner(new SpinnerNumberModel(6, 1, MAX_GRID_SIZE, 1));
             gridSizePanel.add(gridSizeSpinner);
             controlPanel.add(gridSizePanel);
 
-            gridSizeSpinner.addChangeListener((ChangeEvent e) -> {
+            Timer resize = new Timer(RESIZE_DELAY_MS, e -> {
                 int newSize = (int) gridSizeSpinner.getValue();
                 panel.setGridSize(newSize);
                 frame.pack(); // Resize window
                 frame.repaint();
                 frame.revalidate();
             });
+            resize.setRepeats(false);
+            gridSizeSpinner.addChangeListener((ChangeEvent e) -> resize.restart());
 
             JPanel xFreqPanel = new JPanel(new GridLayout(0, 2));
             xFreqPanel.setBackground(Color.DARK_GRAY);
@@ -195,16 +513,16 @@ public class LissajousDrawerWithFrequencies extends JPanel implements ActionList
             yFreqPanel.setBackground(Color.DARK_GRAY);
             yFreqPanel.setBorder(BorderFactory.createTitledBorder("Y Frequencies"));
 
-            for (int i = 0; i < 12; i++) {
+            for (int i = 0; i < MAX_GRID_SIZE; i++) {
                 final int index = i;
                 JLabel xLabel = new JLabel("Col " + (i + 1));
                 xLabel.setForeground(Color.WHITE);
-                JSpinner xSpinner = new JSpinner(new SpinnerNumberModel(i + 1, 1, 20, 1));
+                JSpinner xSpinner = new JSpinner(new SpinnerNumberModel(i + 1, 1, MAX_GRID_SIZE, 1));
                 xSpinner.addChangeListener(e -> panel.setXFrequency(index, (int) xSpinner.getValue()));
 
                 JLabel yLabel = new JLabel("Row " + (i + 1));
                 yLabel.setForeground(Color.WHITE);
-                JSpinner ySpinner = new JSpinner(new SpinnerNumberModel(i + 1, 1, 20, 1));
+                JSpinner ySpinner = new JSpinner(new SpinnerNumberModel(i + 1, 1, MAX_GRID_SIZE, 1));
                 ySpinner.addChangeListener(e -> panel.setYFrequency(index, (int) ySpinner.getValue()));
 
                 xFreqPanel.add(xLabel);
@@ -213,6 +531,12 @@ public class LissajousDrawerWithFrequencies extends JPanel implements ActionList
                 yFreqPanel.add(ySpinner);
             }
 
+            JCheckBox instant = new JCheckBox("Instant figures", panel.isInstantFigures());
+            instant.setBackground(Color.DARK_GRAY);
+            instant.setForeground(Color.WHITE);
+            instant.addActionListener(e -> panel.setInstantFigures(instant.isSelected()));
+            controlPanel.add(instant);
+
             controlPanel.add(xFreqPanel);
             controlPanel.add(yFreqPanel);
 
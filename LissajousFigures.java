@@ -0,0 +1,205 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Closed Lissajous figures, traced once and kept for every cell and panel that shows the same
+ * one. With whole-number frequencies a and b, x = radius * cos(a * t), y = radius * sin(b * t)
+ * closes after t = 2pi, so a figure is just a polyline, and it depends on nothing but (a, b,
+ * radius): the same pair in another cell, or in another drawer, is the same geometry.
+ *
+ * Pairs are reduced by their greatest common divisor first, (2, 4) tracing (1, 2) twice. A
+ * transposed pair (b, a) with a and b both odd is the (a, b) figure with x and y swapped and
+ * signs flipped (t shifted by a quarter turn), so it is mirrored from a cached one instead of
+ * evaluated. With one frequency even the transposed curve is a different shape altogether (the
+ * figure eight of (1, 2) against the parabola of (2, 1)) and is traced on its own.
+ *
+ * The figures are kept least recently used first and the oldest dropped beyond maxFigures. The
+ * cache is shared across threads (OfflineRenderer renders demos in parallel), so get() locks.
+ */
+public class LissajousFigures {
+
+    // Segments of about this many pixels; the trail rasterizer draws them as one smooth line
+    private static final double SEGMENT_PIXELS = 2;
+    private static final int MIN_SEGMENTS = 16;
+
+    private static final LissajousFigures SHARED = new LissajousFigures(1024);
+
+    private final Map<Key, Figure> figures;
+    private long hits;
+    private long mirrored;
+    private long traced;
+
+    public LissajousFigures(int maxFigures) {
+        figures = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Figure> eldest) {
+                return size() > maxFigures;
+            }
+        };
+    }
+
+    /**
+     * The cache every drawer uses.
+     */
+    public static LissajousFigures shared() {
+        return SHARED;
+    }
+
+    /**
+     * The figure of frequencies a and b (both positive) around (0, 0), radius in pixels.
+     */
+    public synchronized Figure get(int a, int b, double radius) {
+        if (a < 1 || b < 1) {
+            throw new IllegalArgumentException("frequencies must be positive: " + a + ", " + b);
+        }
+        int divisor = gcd(a, b);
+        Key key = new Key(a / divisor, b / divisor, radius);
+        Figure figure = figures.get(key);
+        if (figure != null) {
+            hits++;
+            return figure;
+        }
+        Figure transposed = key.a % 2 == 1 && key.b % 2 == 1 && key.a != key.b
+                ? figures.get(new Key(key.b, key.a, radius))
+                : null;
+        if (transposed != null) {
+            figure = transposed.transpose(key.a, key.b);
+            mirrored++;
+        } else {
+            figure = trace(key.a, key.b, radius);
+            traced++;
+        }
+        figures.put(key, figure);
+        return figure;
+    }
+
+    private static Figure trace(int a, int b, double radius) {
+        int segments = Math.max(MIN_SEGMENTS,
+                (int) Math.ceil(2 * Math.PI * radius * Math.max(a, b) / SEGMENT_PIXELS));
+        double[] t = new double[segments];
+        double[] x = new double[segments];
+        double[] y = new double[segments];
+        for (int i = 0; i < segments; i++) {
+            t[i] = 2 * Math.PI * i / segments;
+        }
+        ParametricCurve.lissajous(radius, a, b).evaluate(t, x, y, segments);
+
+        float[] points = new float[2 * segments];
+        for (int i = 0; i < segments; i++) {
+            points[2 * i] = (float) x[i];
+            points[2 * i + 1] = (float) y[i];
+        }
+        return new Figure(points);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * How many figures are cached.
+     */
+    public synchronized int size() {
+        return figures.size();
+    }
+
+    /**
+     * How many get() calls found their figure cached.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * How many figures were mirrored from their transposed pair.
+     */
+    public synchronized long getMirrored() {
+        return mirrored;
+    }
+
+    /**
+     * How many figures had to be evaluated.
+     */
+    public synchronized long getTraced() {
+        return traced;
+    }
+
+    private static final class Key {
+        final int a;
+        final int b;
+        final double radius;
+
+        Key(int a, int b, double radius) {
+            this.a = a;
+            this.b = b;
+            this.radius = radius;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return a == other.a && b == other.b && Double.compare(radius, other.radius) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (a * 31 + b) * 31 + Double.hashCode(radius);
+        }
+    }
+
+    /**
+     * One closed figure: a polyline round (0, 0) whose last point joins its first. Immutable, so
+     * any number of drawers can stamp it at once.
+     */
+    public static final class Figure {
+
+        private final float[] points;
+
+        Figure(float[] points) {
+            this.points = points;
+        }
+
+        public int getPointCount() {
+            return points.length / 2;
+        }
+
+        /**
+         * Draws the figure centred on (centerX, centerY) into an opaque or ARGB canvas with lines
+         * (see LineRasterizer), in one colour.
+         */
+        public void stamp(LineRasterizer lines, int[] pixels, int width, int height,
+                          double centerX, double centerY, int argb) {
+            int n = points.length;
+            double x0 = centerX + points[n - 2];
+            double y0 = centerY + points[n - 1];
+            for (int i = 0; i < n; i += 2) {
+                double x1 = centerX + points[i];
+                double y1 = centerY + points[i + 1];
+                lines.drawLine(pixels, width, height, x0, y0, x1, y1, argb);
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+
+        // This (b, a) figure as the (a, b) one, for a and b both odd. With t = s + pi/2,
+        // sin(a t) = +-cos(a s) and cos(b t) = -+sin(b s), signs by a and b mod 4
+        Figure transpose(int a, int b) {
+            float signX = a % 4 == 1 ? 1 : -1;
+            float signY = b % 4 == 1 ? -1 : 1;
+            float[] swapped = new float[points.length];
+            for (int i = 0; i < points.length; i += 2) {
+                swapped[i] = signX * points[i + 1];
+                swapped[i + 1] = signY * points[i];
+            }
+            return new Figure(swapped);
+        }
+    }
+}
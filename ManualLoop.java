@@ -0,0 +1,60 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * A loop with no clock behind it: frames happen only when step() is called, on the caller's
+ * thread, which makes a drawer drivable from a test or benchmark harness without a display.
+ * start and stop only track the running flag the drawers' pause buttons show; the delay is kept
+ * for a loop that replaces this one.
+ */
+public class ManualLoop implements AnimationLoop {
+
+    private final ActionListener listener;
+    private final ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, null);
+    private boolean running;
+    private int delayMs;
+
+    public ManualLoop(int delayMs, ActionListener listener) {
+        this.delayMs = delayMs;
+        this.listener = listener;
+    }
+
+    /**
+     * Runs frames frames, exactly as the listener would get them from a timer.
+     */
+    public void step(int frames) {
+        for (int i = 0; i < frames; i++) {
+            listener.actionPerformed(event);
+        }
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.MANUAL;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void setDelay(int delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    @Override
+    public int getDelay() {
+        return delayMs;
+    }
+}
@@ -0,0 +1,259 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders the drawers to PNG sequences without a display and without the 16 ms Swing Timer.
+ *
+ * Usage: java OfflineRenderer [--dry-run | --verify-determinism] [--backend=KIND] [--stats] <outDir> <frames> <demo>[:gridSize] ...
+ *
+ * The drawers run on a deterministic {@link SimulationClock}, one simulation step per frame, so the
+ * output does not depend on how fast this machine renders. --verify-determinism renders every
+ * configuration twice without writing files and fails if any frame differs between the runs.
+ * --backend picks the trail surface every demo draws on (a {@link RenderBackend.Kind}, e.g.
+ * software or java2d) instead of each demo's default. --stats prints each demo's per-stage frame
+ * times ({@link FrameStats}) after its timing line.
+ *
+ * Every configuration runs as its own task on a ForkJoinPool. Inside a configuration the frames
+ * depend on each other (the trail canvas), so they are stepped in order, but the PNG encoding of
+ * each finished frame - by far the expensive part - is forked to the pool.
+ */
+public class OfflineRenderer {
+
+    private static final int DEFAULT_GRID_SIZE = 6;
+
+    private static final Map<String, IntFunction<FrameSource>> DEMOS = new LinkedHashMap<>();
+
+    static {
+        DEMOS.put("butterfly", gridSize -> new ButterflyCurve(false));
+        DEMOS.put("smooth-butterfly", gridSize -> new SmoothButterflyCurve(false));
+        DEMOS.put("lissajous", gridSize -> new LissajousDrawer(false));
+        DEMOS.put("lissajous-dynamic", gridSize -> {
+            LissajousDrawerDynamic drawer = new LissajousDrawerDynamic(false);
+            drawer.setGridSize(gridSize);
+            return drawer;
+        });
+        DEMOS.put("lissajous-controls", gridSize -> {
+            LissajousDrawerWithControls drawer = new LissajousDrawerWithControls(false);
+            drawer.setGridSize(gridSize);
+            return drawer;
+        });
+        DEMOS.put("lissajous-frequencies", gridSize -> {
+            LissajousDrawerWithFrequencies drawer = new LissajousDrawerWithFrequencies(false);
+            drawer.setGridSize(gridSize);
+            return drawer;
+        });
+    }
+
+    /**
+     * Creates the named demo with its timer stopped; gridSize is ignored by the fixed-size demos.
+     */
+    static FrameSource createDemo(String demo, int gridSize) {
+        IntFunction<FrameSource> factory = DEMOS.get(demo);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown demo '" + demo + "', expected one of " + DEMOS.keySet());
+        }
+        return factory.apply(gridSize);
+    }
+
+    /**
+     * The grid size a demo:gridSize argument without a size stands for: 0 for the fixed-size demos.
+     */
+    static int defaultGridSize(String demo) {
+        boolean resizable = demo.equals("lissajous-dynamic") || demo.equals("lissajous-controls")
+                || demo.equals("lissajous-frequencies");
+        return resizable ? DEFAULT_GRID_SIZE : 0;
+    }
+
+    static Set<String> demoNames() {
+        return DEMOS.keySet();
+    }
+
+    private final String demo;
+    private final int gridSize;
+    private final int frames;
+    private final File outDir;
+    private final boolean writeFiles;
+    private final int[] frameChecksums;
+    private FrameStats.Snapshot stats;
+
+    OfflineRenderer(String demo, int gridSize, int frames, File outDir, boolean writeFiles) {
+        if (!DEMOS.containsKey(demo)) {
+            throw new IllegalArgumentException("Unknown demo '" + demo + "', expected one of " + DEMOS.keySet());
+        }
+        this.demo = demo;
+        this.gridSize = gridSize;
+        this.frames = frames;
+        this.outDir = outDir;
+        this.writeFiles = writeFiles;
+        this.frameChecksums = new int[frames];
+    }
+
+    /**
+     * Renders all frames of this configuration and returns the elapsed time in nanoseconds.
+     * Must run on a ForkJoinPool worker so the encode tasks can be forked and joined.
+     */
+    long render() {
+        FrameSource source = createDemo(demo, gridSize);
+        source.setSimulationClock(SimulationClock.deterministic());
+        int w = source.getFrameWidth();
+        int h = source.getFrameHeight();
+
+        // One image per in-flight encode; an image is reused only after its encode has been joined
+        int maxInFlight = Math.max(2, ForkJoinTask.getPool().getParallelism() * 2);
+        BufferedImage[] frameImages = new BufferedImage[maxInFlight];
+        for (int i = 0; i < maxInFlight; i++) {
+            frameImages[i] = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+        ArrayDeque<ForkJoinTask<?>> inFlight = new ArrayDeque<>();
+
+        File dir = new File(outDir, gridSize > 0 ? demo + "-g" + gridSize : demo);
+        if (writeFiles && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new UncheckedIOException(new IOException("Cannot create " + dir));
+        }
+
+        long start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            if (inFlight.size() == maxInFlight) {
+                inFlight.poll().join();
+            }
+            BufferedImage image = frameImages[frame % maxInFlight];
+
+            source.stepFrame();
+            Graphics2D g2 = image.createGraphics();
+            g2.setColor(Color.BLACK);
+            g2.fillRect(0, 0, w, h);
+            source.renderFrame(g2);
+            g2.dispose();
+            frameChecksums[frame] = Arrays.hashCode(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+
+            if (writeFiles) {
+                File file = new File(dir, String.format("frame_%05d.png", frame));
+                inFlight.add(ForkJoinTask.adapt(() -> writePng(image, file)).fork());
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            inFlight.poll().join();
+        }
+        stats = source.getFrameStats().snapshot();
+        return System.nanoTime() - start;
+    }
+
+    private static void writePng(BufferedImage image, File file) {
+        try {
+            ImageIO.write(image, "png", file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Renders every configuration twice from scratch and compares the frames one by one
+    private static boolean verifyDeterminism(List<OfflineRenderer> configs) {
+        boolean ok = true;
+        for (OfflineRenderer config : configs) {
+            OfflineRenderer again = new OfflineRenderer(config.demo, config.gridSize, config.frames, config.outDir, false);
+            ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            pool.submit(config::render).join();
+            pool.submit(again::render).join();
+            pool.shutdown();
+
+            int mismatch = Arrays.mismatch(config.frameChecksums, again.frameChecksums);
+            if (mismatch < 0) {
+                System.out.printf("%-26s deterministic over %d frames%n", config.label(), config.frames);
+            } else {
+                System.out.printf("%-26s frame %d differs between runs%n", config.label(), mismatch);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private String label() {
+        return gridSize > 0 ? demo + ":" + gridSize : demo;
+    }
+
+    public static void main(String[] args) {
+        // Must be set before the first AWT class initializes the toolkit
+        System.setProperty("java.awt.headless", "true");
+
+        int argIndex = 0;
+        boolean writeFiles = true;
+        boolean verify = false;
+        if (args.length > 0 && args[0].equals("--dry-run")) {
+            writeFiles = false;
+            argIndex++;
+        } else if (args.length > 0 && args[0].equals("--verify-determinism")) {
+            writeFiles = false;
+            verify = true;
+            argIndex++;
+        }
+        if (argIndex < args.length && args[argIndex].startsWith("--backend=")) {
+            String kind = args[argIndex++].substring("--backend=".length());
+            // Read by each demo when it creates its trail canvas
+            System.setProperty(RenderBackend.Kind.PROPERTY, kind);
+            try {
+                RenderBackend.Kind.selected(null);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown backend '" + kind + "', expected one of " + Arrays.toString(RenderBackend.Kind.values()));
+                System.exit(1);
+            }
+        }
+        boolean printStats = false;
+        if (argIndex < args.length && args[argIndex].equals("--stats")) {
+            printStats = true;
+            argIndex++;
+        }
+        if (args.length - argIndex < 3) {
+            System.err.println("Usage: java OfflineRenderer [--dry-run | --verify-determinism] [--backend=KIND] [--stats] <outDir> <frames> <demo>[:gridSize] ...");
+            System.err.println("Demos: " + DEMOS.keySet());
+            System.exit(1);
+        }
+        File outDir = new File(args[argIndex++]);
+        int frames = Integer.parseInt(args[argIndex++]);
+
+        List<OfflineRenderer> configs = new ArrayList<>();
+        for (; argIndex < args.length; argIndex++) {
+            String[] parts = args[argIndex].split(":");
+            String demo = parts[0];
+            int gridSize = parts.length > 1 ? Integer.parseInt(parts[1]) : defaultGridSize(demo);
+            configs.add(new OfflineRenderer(demo, gridSize, frames, outDir, writeFiles));
+        }
+        if (verify) {
+            System.exit(verifyDeterminism(configs) ? 0 : 1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+        for (OfflineRenderer config : configs) {
+            tasks.add(pool.submit(config::render));
+        }
+        for (int i = 0; i < configs.size(); i++) {
+            long nanos = tasks.get(i).join();
+            System.out.printf("%-26s %6d frames in %7.2f s  %8.1f frames/sec%n",
+                    configs.get(i).label(), frames, nanos / 1e9, frames / (nanos / 1e9));
+            if (printStats) {
+                System.out.println(configs.get(i).stats);
+            }
+        }
+        double totalSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Total: %d frames in %.2f s (%.1f frames/sec on %d threads)%n",
+                frames * configs.size(), totalSeconds, frames * configs.size() / totalSeconds,
+                pool.getParallelism());
+        pool.shutdown();
+    }
+}
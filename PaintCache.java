@@ -0,0 +1,69 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * Color and BasicStroke objects for the Graphics2D backends, which are handed ARGB ints and
+ * widths per call; making a new Color per line would allocate on every segment. Colours live in
+ * a direct-mapped table (a miss just replaces the slot), strokes in a short list, since a demo
+ * only ever uses a few widths. It also keeps the path the backends stroke polylines with.
+ */
+public class PaintCache {
+
+    private static final int COLOR_SLOTS = 1024;
+
+    private final Color[] colors = new Color[COLOR_SLOTS];
+    private float[] widths = new float[0];
+    private BasicStroke[] strokes = new BasicStroke[0];
+    private final Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, 64);
+
+    public Color color(int argb) {
+        int slot = (argb ^ (argb >>> 10) ^ (argb >>> 20)) & (COLOR_SLOTS - 1);
+        Color color = colors[slot];
+        if (color == null || color.getRGB() != argb) {
+            color = new Color(argb, true);
+            colors[slot] = color;
+        }
+        return color;
+    }
+
+    /**
+     * A stroke of the given width with round caps and joins.
+     */
+    public BasicStroke stroke(float width) {
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] == width) {
+                return strokes[i];
+            }
+        }
+        int n = widths.length;
+        widths = Arrays.copyOf(widths, n + 1);
+        strokes = Arrays.copyOf(strokes, n + 1);
+        widths[n] = width;
+        strokes[n] = new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        return strokes[n];
+    }
+
+    /**
+     * RenderBackend.polyline with g2: every run of segments of one colour is a single path.
+     */
+    public void drawPolyline(Graphics2D g2, double[] xs, double[] ys, int count, float width, int[] argb) {
+        g2.setStroke(stroke(width));
+        for (int start = 0; start + 1 < count; ) {
+            int end = start + 1;
+            while (end + 1 < count && argb[end] == argb[start]) {
+                end++;
+            }
+            path.reset();
+            path.moveTo(xs[start], ys[start]);
+            for (int i = start + 1; i <= end; i++) {
+                path.lineTo(xs[i], ys[i]);
+            }
+            g2.setColor(color(argb[start]));
+            g2.draw(path);
+            start = end;
+        }
+    }
+}
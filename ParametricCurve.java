@@ -0,0 +1,104 @@
+import java.util.Locale;
+
+/**
+ * A plane curve (x(t), y(t)) evaluated for many values of t per call, for code that needs thousands
+ * of samples at once: building the butterfly table, batched steps, offline rendering. The demos'
+ * curves are its first implementations: the butterfly and the Lissajous figure (whose special case
+ * a = b is a guide circle).
+ *
+ * Each curve comes in a scalar version and, where the jdk.incubator.vector module is present, one
+ * evaluating SIMD lanes at a time with the Vector API. The vector classes are in incubator/ so that
+ * javac *.java still builds without the module; with it:
+ *
+ *   javac --add-modules jdk.incubator.vector -d out *.java incubator/*.java
+ *   java --add-modules jdk.incubator.vector -cp out ...
+ *
+ * Which one the factory methods hand out is picked by the curve.kernels system property, or is
+ * the vector version whenever it loads. The two agree to about 1e-15 in absolute terms; the vector
+ * transcendental functions are not bit-for-bit Math's.
+ */
+public interface ParametricCurve {
+
+    enum Kind {
+        /** Plain loops over Math.sin / cos / exp. */
+        SCALAR,
+        /** jdk.incubator.vector lanes; SCALAR where the module or incubator/ classes are missing. */
+        VECTOR;
+
+        public static final String PROPERTY = "curve.kernels";
+
+        private static final Factory VECTOR_FACTORY = loadVectorFactory();
+
+        /**
+         * The kind named by the curve.kernels system property, or else VECTOR if it is available.
+         */
+        public static Kind selected() {
+            String name = System.getProperty(PROPERTY);
+            if (name != null) {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            }
+            return VECTOR.isAvailable() ? VECTOR : SCALAR;
+        }
+
+        public boolean isAvailable() {
+            return this == SCALAR || VECTOR_FACTORY != null;
+        }
+
+        /**
+         * The curves of this kind, or the scalar ones where it is not available.
+         */
+        public Factory factory() {
+            return this == VECTOR && VECTOR_FACTORY != null ? VECTOR_FACTORY : ScalarCurves.FACTORY;
+        }
+
+        // The module has to be resolved (--add-modules) as well as the class compiled
+        private static Factory loadVectorFactory() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                return (Factory) Class.forName("VectorCurves").getField("FACTORY").get(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * One implementation of every curve.
+     */
+    interface Factory {
+
+        /**
+         * The butterfly curve in curve units: r = e^cos(t) - 2cos(4t) - sin^5(t/12),
+         * x = sin(t) * r, y = cos(t) * r.
+         */
+        ParametricCurve butterfly();
+
+        /**
+         * x = radius * cos(a * t), y = radius * sin(b * t); with a = b, a guide circle.
+         */
+        ParametricCurve lissajous(double radius, double a, double b);
+    }
+
+    /**
+     * The butterfly of the selected kind.
+     */
+    static ParametricCurve butterfly() {
+        return Kind.selected().factory().butterfly();
+    }
+
+    /**
+     * The Lissajous figure of the selected kind.
+     */
+    static ParametricCurve lissajous(double radius, double a, double b) {
+        return Kind.selected().factory().lissajous(radius, a, b);
+    }
+
+    Kind kind();
+
+    /**
+     * Sets x[i] and y[i] to the curve's point at t[i], for i < n.
+     */
+    void evaluate(double[] t, double[] x, double[] y, int n);
+}
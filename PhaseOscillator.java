@@ -0,0 +1,104 @@
+/**
+ * A point moving round the unit circle at a fixed angular step, advanced by one complex multiply
+ * per step instead of calling Math.cos / Math.sin on an ever-growing angle.
+ *
+ * The angle is also kept as a phase accumulator wrapped to [0, 2pi) (with compensated summation,
+ * so it does not drift either). Every RESYNC_INTERVAL steps the rotated point is snapped back onto
+ * the circle from that phase, which both renormalizes it and removes the rounding error the
+ * multiplies have built up. The trig calls in a resync always see a small argument, however long
+ * the animation has been running.
+ */
+public class PhaseOscillator {
+
+    static final int RESYNC_INTERVAL = 256;
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private double stepAngle;
+    private double stepCos;
+    private double stepSin;
+
+    private double cos;
+    private double sin;
+    private double phase;
+    private double phaseCompensation;
+    private int stepsSinceResync;
+
+    /**
+     * An oscillator turning by frequency * stepSize radians per step, starting at phase 0.
+     */
+    public PhaseOscillator(double frequency, double stepSize) {
+        setStepAngle(frequency * stepSize);
+        seed(0);
+    }
+
+    /**
+     * Changes the angular step without touching the current phase.
+     */
+    public void setStepAngle(double stepAngle) {
+        this.stepAngle = stepAngle;
+        stepCos = Math.cos(stepAngle);
+        stepSin = Math.sin(stepAngle);
+    }
+
+    /**
+     * Jumps to the given phase, e.g. angle = t * frequency after a frequency change.
+     */
+    public void seed(double angle) {
+        phase = wrap(angle);
+        phaseCompensation = 0;
+        resync();
+    }
+
+    /**
+     * Jumps to where the oscillator would be after the given number of steps from phase 0.
+     */
+    public void seedAtStep(long step) {
+        seed(step * stepAngle);
+    }
+
+    public void step() {
+        double c = cos * stepCos - sin * stepSin;
+        double s = sin * stepCos + cos * stepSin;
+        cos = c;
+        sin = s;
+
+        // Kahan-compensated phase += stepAngle, wrapped to [0, 2pi)
+        double y = stepAngle - phaseCompensation;
+        double sum = phase + y;
+        phaseCompensation = (sum - phase) - y;
+        phase = sum;
+        if (phase >= TWO_PI) {
+            phase -= TWO_PI;
+        }
+
+        if (++stepsSinceResync == RESYNC_INTERVAL) {
+            resync();
+        }
+    }
+
+    public double cos() {
+        return cos;
+    }
+
+    public double sin() {
+        return sin;
+    }
+
+    /**
+     * The current angle in [0, 2pi).
+     */
+    public double phase() {
+        return phase;
+    }
+
+    private void resync() {
+        cos = Math.cos(phase);
+        sin = Math.sin(phase);
+        stepsSinceResync = 0;
+    }
+
+    private static double wrap(double angle) {
+        double wrapped = angle % TWO_PI;
+        return wrapped < 0 ? wrapped + TWO_PI : wrapped;
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Keeps a drawer within its frame budget by giving up quality, one level at a time, and takes the
+ * quality back once there is room for it. The drawer reports the work of each frame (steps plus
+ * paint, see FrameStats.getLastFrameNanos) and asks for the level before stepping.
+ *
+ * Frame times are smoothed (an exponential average over about ten frames) so a single GC pause
+ * does not change anything. The level goes down after DOWNGRADE_FRAMES frames over budget in a
+ * row and up after upgradeFrames frames under UPGRADE_HEADROOM of the budget. A step up that has
+ * to be taken back soon after doubles the wait before the next one, so a drawer sitting right at
+ * the edge of a level settles instead of flipping between two.
+ *
+ * Each change is logged (System.Logger "patterns.quality", INFO) and emitted as a
+ * {@link LevelEvent} while a JFR recording has it enabled. The budget is 1000 / 60 ms unless the
+ * quality.budget system property gives one in milliseconds; quality.level pins a level, and the
+ * governor then leaves it alone.
+ *
+ * Like FrameStats it is meant for the thread that steps and paints the drawer.
+ */
+public class QualityGovernor {
+
+    /**
+     * From best to cheapest; each level keeps the savings of the ones before it.
+     */
+    public enum Level {
+        /** Everything as designed. */
+        FULL(true, 1, Integer.MAX_VALUE),
+        /**
+         * Guide lines drawn opaque without antialiasing. (Translucent lines are faster with
+         * antialiasing on, so it is the blend that goes as well.)
+         */
+        PLAIN_GUIDES(false, 1, Integer.MAX_VALUE),
+        /** Trails at half the resolution in each direction, scaled up when painted. */
+        HALF_RESOLUTION_TRAILS(false, 2, Integer.MAX_VALUE),
+        /** One simulation step per frame at most; the animation slows down instead of catching up. */
+        ONE_SUB_STEP(false, 2, 1);
+
+        private final boolean smoothGuides;
+        private final int trailDivisor;
+        private final int subStepLimit;
+
+        Level(boolean smoothGuides, int trailDivisor, int subStepLimit) {
+            this.smoothGuides = smoothGuides;
+            this.trailDivisor = trailDivisor;
+            this.subStepLimit = subStepLimit;
+        }
+
+        /**
+         * Whether guide lines are translucent and antialiased.
+         */
+        public boolean smoothGuides() {
+            return smoothGuides;
+        }
+
+        /**
+         * How many times smaller than the panel the trail canvas is, in each direction.
+         */
+        public int trailDivisor() {
+            return trailDivisor;
+        }
+
+        /**
+         * The most simulation steps per frame, for SimulationClock.setSubStepLimit.
+         */
+        public int subStepLimit() {
+            return subStepLimit;
+        }
+    }
+
+    public static final String BUDGET_PROPERTY = "quality.budget";
+    public static final String LEVEL_PROPERTY = "quality.level";
+
+    private static final System.Logger LOG = System.getLogger("patterns.quality");
+    private static final Level[] LEVELS = Level.values();
+    private static final double SMOOTHING = 0.1;
+    private static final int DOWNGRADE_FRAMES = 30;
+    private static final double UPGRADE_HEADROOM = 0.6;
+    private static final int MIN_UPGRADE_FRAMES = 120;
+    private static final int MAX_UPGRADE_FRAMES = 60 * 60;
+
+    private final String drawer;
+    private final long budgetNanos;
+    private final boolean adaptive;
+    private Level level;
+
+    private double smoothedNanos;
+    private int overFrames;
+    private int underFrames;
+    private int framesAtLevel;
+    private boolean steppedUp;
+    private int upgradeFrames = MIN_UPGRADE_FRAMES;
+    private long changes;
+
+    /**
+     * The governor of the given drawer, with the budget and any pinned level from the system
+     * properties.
+     */
+    public QualityGovernor(String drawer) {
+        this(drawer, budgetFromProperty(), levelFromProperty());
+    }
+
+    /**
+     * A governor starting at FULL with the given budget per frame, or pinned at level if that is
+     * not null.
+     */
+    public QualityGovernor(String drawer, long budgetNanos, Level level) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("budgetNanos must be positive: " + budgetNanos);
+        }
+        this.drawer = drawer;
+        this.budgetNanos = budgetNanos;
+        this.adaptive = level == null;
+        this.level = level == null ? Level.FULL : level;
+    }
+
+    private static long budgetFromProperty() {
+        String millis = System.getProperty(BUDGET_PROPERTY);
+        return millis == null ? 1_000_000_000L / 60 : Math.round(Double.parseDouble(millis.trim()) * 1e6);
+    }
+
+    private static Level levelFromProperty() {
+        String name = System.getProperty(LEVEL_PROPERTY);
+        return name == null ? null : Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Takes the work of one frame into account; the level it leads to applies from the next one.
+     */
+    public void frameFinished(long frameNanos) {
+        if (!adaptive || frameNanos <= 0) {
+            return;
+        }
+        smoothedNanos = smoothedNanos == 0 ? frameNanos : smoothedNanos + (frameNanos - smoothedNanos) * SMOOTHING;
+        framesAtLevel++;
+        overFrames = smoothedNanos > budgetNanos ? overFrames + 1 : 0;
+        underFrames = smoothedNanos < budgetNanos * UPGRADE_HEADROOM ? underFrames + 1 : 0;
+
+        if (overFrames >= DOWNGRADE_FRAMES && level.ordinal() < LEVELS.length - 1) {
+            if (steppedUp && framesAtLevel < 2 * upgradeFrames) {
+                // The last step up did not hold; wait longer before trying again
+                upgradeFrames = Math.min(2 * upgradeFrames, MAX_UPGRADE_FRAMES);
+            }
+            change(LEVELS[level.ordinal() + 1], false);
+        } else if (underFrames >= upgradeFrames && level.ordinal() > 0) {
+            change(LEVELS[level.ordinal() - 1], true);
+        } else if (steppedUp && framesAtLevel >= 2 * upgradeFrames) {
+            // The step up held
+            steppedUp = false;
+            upgradeFrames = MIN_UPGRADE_FRAMES;
+        }
+    }
+
+    private void change(Level next, boolean up) {
+        Level previous = level;
+        long frameNanos = (long) smoothedNanos;
+        level = next;
+        steppedUp = up;
+        changes++;
+        framesAtLevel = 0;
+        overFrames = 0;
+        underFrames = 0;
+        // The next frames measure the new level
+        smoothedNanos = 0;
+
+        LOG.log(System.Logger.Level.INFO, () -> String.format(Locale.ROOT,
+                "%s: %s -> %s at %.1f ms per frame (budget %.1f ms)",
+                drawer, previous, next, frameNanos / 1e6, budgetNanos / 1e6));
+        LevelEvent event = new LevelEvent();
+        if (event.isEnabled()) {
+            event.drawer = drawer;
+            event.from = previous.name();
+            event.to = next.name();
+            event.frameTime = frameNanos;
+            event.budget = budgetNanos;
+            event.commit();
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Whether the level follows the frame times, rather than being pinned by quality.level.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * How many times the level has changed.
+     */
+    public long getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %s (%s, budget %.1f ms, %d changes)",
+                drawer, level, adaptive ? "adaptive" : "pinned", budgetNanos / 1e6, changes);
+    }
+
+    /**
+     * A change of quality level.
+     */
+    @Name("patterns.QualityLevel")
+    @Label("Quality Level")
+    @Category("Java Patterns")
+    @Description("A drawer's quality governor changed level")
+    public static class LevelEvent extends Event {
+        @Label("Drawer")
+        String drawer;
+
+        @Label("From")
+        String from;
+
+        @Label("To")
+        String to;
+
+        @Label("Frame Time")
+        @Description("Smoothed work per frame that led to the change")
+        @Timespan(Timespan.NANOSECONDS)
+        long frameTime;
+
+        @Label("Budget")
+        @Timespan(Timespan.NANOSECONDS)
+        long budget;
+    }
+}
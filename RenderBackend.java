@@ -0,0 +1,149 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.util.Locale;
+
+/**
+ * A trail surface the demos draw on, behind which the pixels may live in a BufferedImage drawn
+ * with Java2D, in an accelerated VolatileImage, or in a plain int[] worked on in software. The
+ * demos only use these primitives, so which one is fastest can be picked per host at startup
+ * (the render.backend system property, or FrameSource.setRenderBackend) and benchmarked side by
+ * side.
+ *
+ * Colours are non-premultiplied ARGB ints. A surface is either translucent (transparent where
+ * nothing was drawn, shown over the panel's black background) or opaque (black where nothing was
+ * drawn, see {@link GridLayers}). Surfaces are not thread-safe.
+ */
+public interface RenderBackend {
+
+    enum Kind {
+        /** BufferedImage drawn with Graphics2D, faded by TrailDecay on its pixels. */
+        JAVA2D,
+        /** VolatileImage drawn with Graphics2D and faded with a translucent fillRect; needs a display. */
+        VOLATILE,
+        /** int[] drawn by LineRasterizer and Sprite.stamp, faded by TrailDecay; runs headless. */
+        SOFTWARE,
+        /** int[] faded lazily, only where it is drawn on or shown (see LazyTrail). */
+        LAZY;
+
+        public static final String PROPERTY = "render.backend";
+
+        /**
+         * The kind named by the render.backend system property, or fallback when it is not set.
+         */
+        public static Kind selected(Kind fallback) {
+            String name = System.getProperty(PROPERTY);
+            return name == null ? fallback : valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        public boolean isAvailable() {
+            return this != VOLATILE || !GraphicsEnvironment.isHeadless();
+        }
+
+        /**
+         * A new, cleared width x height surface of this kind; a VOLATILE surface is created as
+         * JAVA2D where there is no display to accelerate it. decay may be null for a surface
+         * that is never faded.
+         */
+        public RenderBackend create(int width, int height, TrailDecay decay, boolean opaque) {
+            return create(width, height, decay, opaque, null);
+        }
+
+        /**
+         * Like create(width, height, decay, opaque), with the canvas of a JAVA2D or SOFTWARE
+         * surface taken from pool (if not null) and given back to it by dispose(). The other kinds
+         * keep their pixels elsewhere and allocate as usual.
+         */
+        public RenderBackend create(int width, int height, TrailDecay decay, boolean opaque, CanvasPool pool) {
+            switch (isAvailable() ? this : JAVA2D) {
+                case JAVA2D:
+                    return pool == null
+                            ? new Java2DBackend(width, height, decay, opaque)
+                            : new Java2DBackend(pool.acquire(width, height, opaque), decay, pool);
+                case VOLATILE:
+                    return new VolatileBackend(width, height, decay, opaque);
+                case SOFTWARE:
+                    return pool == null
+                            ? new SoftwareBackend(width, height, decay, opaque)
+                            : new SoftwareBackend(pool.acquire(width, height, opaque), decay, pool);
+                default:
+                    return new LazyTrail(width, height, decay, opaque);
+            }
+        }
+    }
+
+    Kind kind();
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Erases everything drawn so far.
+     */
+    void clear();
+
+    /**
+     * Fades everything drawn so far by one step of the surface's TrailDecay.
+     */
+    void fade();
+
+    /**
+     * An antialiased line of the given width from (x0, y0) to (x1, y1), blended SRC_OVER.
+     */
+    void line(double x0, double y0, double x1, double y1, float width, int argb);
+
+    /**
+     * An antialiased polyline through the first count points of xs / ys, the segment from point i
+     * to point i + 1 in colour argb[i]. Drawn like line() with the same width per segment, except
+     * that backends drawing with Graphics2D stroke each run of same-coloured segments as one path,
+     * so a batch of thousands of segments costs a state change per colour rather than per segment.
+     */
+    void polyline(double[] xs, double[] ys, int count, float width, int[] argb);
+
+    /**
+     * The sprite, where Sprite.draw with the same x and y would put it.
+     */
+    void dot(Sprite sprite, int x, int y);
+
+    /**
+     * Finishes this frame's drawing and returns the part of the surface it changed, to be
+     * repainted; the whole surface unless the backend keeps track. The rectangle may be reused.
+     */
+    Rectangle flush();
+
+    /**
+     * Draws the surface with its top-left corner at (x, y).
+     */
+    void blit(Graphics2D g2, int x, int y);
+
+    /**
+     * Draws the part of the surface inside area, given in surface coordinates, where blit(g2, x,
+     * y) would put it.
+     */
+    default void blit(Graphics2D g2, int x, int y, Rectangle area) {
+        blit(g2, x, y, area, 1);
+    }
+
+    /**
+     * Like blit(g2, x, y, area), with the surface scaled up scale times about (x, y), as for a
+     * surface kept at a fraction of the panel's resolution. How it is scaled is up to g2's
+     * interpolation hint.
+     */
+    void blit(Graphics2D g2, int x, int y, Rectangle area, int scale);
+
+    /**
+     * The surface's pixels, width * height of them row by row, for callers that draw on them
+     * directly; null unless this is a SOFTWARE surface. On a canvas from a CanvasPool the array
+     * may be longer, the rest of it not part of the surface.
+     */
+    default int[] pixels() {
+        return null;
+    }
+
+    /**
+     * Lets go of what the surface holds besides memory: its Graphics2D, its accelerated image,
+     * its canvas if that came from a CanvasPool. The surface must not be used afterwards.
+     */
+    void dispose();
+}
@@ -0,0 +1,115 @@
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * A line segment that can be moved with setLine() and drawn with Graphics2D.draw() without
+ * allocating. Line2D hands out a new iterator on every draw (and wide strokes make Java2D
+ * wrap the line in yet another shape); this class is its own iterator instead.
+ *
+ * An instance must only be drawn by one thread at a time.
+ */
+public class ReusableSegment implements Shape, PathIterator {
+
+    private double x1, y1, x2, y2;
+    private AffineTransform transform;
+    private int index;
+
+    public void setLine(double x1, double y1, double x2, double y2) {
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at) {
+        transform = at;
+        index = 0;
+        return this;
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at, double flatness) {
+        return getPathIterator(at);
+    }
+
+    @Override
+    public int getWindingRule() {
+        return WIND_NON_ZERO;
+    }
+
+    @Override
+    public boolean isDone() {
+        return index > 1;
+    }
+
+    @Override
+    public void next() {
+        index++;
+    }
+
+    @Override
+    public int currentSegment(float[] coords) {
+        coords[0] = (float) (index == 0 ? x1 : x2);
+        coords[1] = (float) (index == 0 ? y1 : y2);
+        if (transform != null) {
+            transform.transform(coords, 0, coords, 0, 1);
+        }
+        return index == 0 ? SEG_MOVETO : SEG_LINETO;
+    }
+
+    @Override
+    public int currentSegment(double[] coords) {
+        coords[0] = index == 0 ? x1 : x2;
+        coords[1] = index == 0 ? y1 : y2;
+        if (transform != null) {
+            transform.transform(coords, 0, coords, 0, 1);
+        }
+        return index == 0 ? SEG_MOVETO : SEG_LINETO;
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return getBounds2D().getBounds();
+    }
+
+    @Override
+    public Rectangle2D getBounds2D() {
+        return new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+    }
+
+    // A segment encloses no area, so nothing is ever inside it
+    @Override
+    public boolean contains(double x, double y) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Point2D p) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(double x, double y, double w, double h) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(Rectangle2D r) {
+        return false;
+    }
+
+    @Override
+    public boolean intersects(double x, double y, double w, double h) {
+        return getBounds2D().intersects(x, y, w, h);
+    }
+
+    @Override
+    public boolean intersects(Rectangle2D r) {
+        return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+}
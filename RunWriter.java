@@ -0,0 +1,110 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Console text built from runs of one repeated character, for the star patterns. Bytes collect in
+ * one reusable direct buffer and go out to the channel in large writes, instead of one synchronized
+ * PrintStream call per character, and a styled run (an ANSI colour, say) is wrapped in a single
+ * set/reset pair however long it is.
+ *
+ * Nothing reaches the channel until the buffer fills or flush() is called. Not thread-safe.
+ */
+public class RunWriter {
+
+    // Runs are copied from a prefilled chunk of their character, this many bytes at a time
+    private static final int CHUNK = 4096;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[][] chunks = new byte[256][];
+    private long written;
+
+    public RunWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * A writer straight to the process's standard output, bypassing System.out; flush System.out
+     * first if anything was printed there.
+     */
+    public static RunWriter toStandardOutput(int bufferSize) {
+        return new RunWriter(new FileOutputStream(FileDescriptor.out).getChannel(), bufferSize);
+    }
+
+    /**
+     * Appends count copies of an ASCII character; nothing when count is 0 or less.
+     */
+    public void run(byte c, int count) throws IOException {
+        byte[] chunk = chunks[c & 0xFF];
+        if (chunk == null && count > 0) {
+            chunk = new byte[CHUNK];
+            Arrays.fill(chunk, c);
+            chunks[c & 0xFF] = chunk;
+        }
+        while (count > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(count, Math.min(CHUNK, buffer.remaining()));
+            buffer.put(chunk, 0, n);
+            count -= n;
+        }
+    }
+
+    /**
+     * Appends count copies of c between one style and one reset sequence; nothing at all when
+     * count is 0 or less, so empty runs cost no escape bytes either.
+     */
+    public void run(byte[] style, byte c, int count, byte[] reset) throws IOException {
+        if (count > 0) {
+            bytes(style);
+            run(c, count);
+            bytes(reset);
+        }
+    }
+
+    public void bytes(byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    public void newline() throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes out everything appended so far.
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * How many bytes have reached the channel.
+     */
+    public long written() {
+        return written;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
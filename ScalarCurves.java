@@ -0,0 +1,65 @@
+/**
+ * The curves of {@link ParametricCurve} as plain loops, one t at a time; what every other kind
+ * falls back to. The butterfly is the same arithmetic as ButterflyTable.x / y, with the radius
+ * worked out once per point instead of once per coordinate.
+ */
+public class ScalarCurves {
+
+    public static final ParametricCurve.Factory FACTORY = new ParametricCurve.Factory() {
+        @Override
+        public ParametricCurve butterfly() {
+            return new Butterfly();
+        }
+
+        @Override
+        public ParametricCurve lissajous(double radius, double a, double b) {
+            return new Lissajous(radius, a, b);
+        }
+    };
+
+    private ScalarCurves() {
+    }
+
+    static final class Butterfly implements ParametricCurve {
+
+        @Override
+        public Kind kind() {
+            return Kind.SCALAR;
+        }
+
+        @Override
+        public void evaluate(double[] t, double[] x, double[] y, int n) {
+            for (int i = 0; i < n; i++) {
+                double r = ButterflyTable.radius(t[i]);
+                x[i] = Math.sin(t[i]) * r;
+                y[i] = Math.cos(t[i]) * r;
+            }
+        }
+    }
+
+    static final class Lissajous implements ParametricCurve {
+
+        private final double radius;
+        private final double a;
+        private final double b;
+
+        Lissajous(double radius, double a, double b) {
+            this.radius = radius;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public Kind kind() {
+            return Kind.SCALAR;
+        }
+
+        @Override
+        public void evaluate(double[] t, double[] x, double[] y, int n) {
+            for (int i = 0; i < n; i++) {
+                x[i] = radius * Math.cos(a * t[i]);
+                y[i] = radius * Math.sin(b * t[i]);
+            }
+        }
+    }
+}
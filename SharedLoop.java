@@ -0,0 +1,192 @@
+import java.awt.Frame;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyBoundsListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowStateListener;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * A drawer's frames run by an {@link AnimationScheduler} together with every other shared loop,
+ * in one EDT pass per tick. The delay is the drawer's frame-rate cap within the scheduler's
+ * ticks.
+ *
+ * While running, the loop listens to its target's hierarchy, bounds and window events, and works
+ * out whether the target can be seen only after one of them arrived; the scheduler throttles or
+ * suspends it while it cannot. A loop with no target always counts as visible.
+ */
+public class SharedLoop implements AnimationLoop {
+
+    private final AnimationScheduler scheduler;
+    private final ActionListener listener;
+    private final JComponent target;
+    private final ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, null);
+    private final Visibility visibility = new Visibility();
+    private final Rectangle visibleRect = new Rectangle();
+    private boolean running;
+    private int delayMs;
+    private Window window;
+    private boolean visible;
+    private boolean visibilityChanged;
+
+    // When the next frame is due, kept by the scheduler
+    long nextNanos;
+
+    public SharedLoop(int delayMs, ActionListener listener, JComponent target) {
+        this(AnimationScheduler.shared(), delayMs, listener, target);
+    }
+
+    public SharedLoop(AnimationScheduler scheduler, int delayMs, ActionListener listener, JComponent target) {
+        this.scheduler = scheduler;
+        this.delayMs = delayMs;
+        this.listener = listener;
+        this.target = target;
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.SHARED;
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (target != null) {
+            target.addHierarchyListener(visibility);
+            target.addHierarchyBoundsListener(visibility);
+            target.addComponentListener(visibility);
+            watchWindow();
+        }
+        visibilityChanged = true;
+        scheduler.add(this);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.remove(this);
+        if (target != null) {
+            target.removeHierarchyListener(visibility);
+            target.removeHierarchyBoundsListener(visibility);
+            target.removeComponentListener(visibility);
+            if (window != null) {
+                window.removeWindowStateListener(visibility);
+                window = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void setDelay(int delayMs) {
+        this.delayMs = delayMs;
+        if (running) {
+            scheduler.reschedule();
+        }
+    }
+
+    @Override
+    public int getDelay() {
+        return delayMs;
+    }
+
+    public JComponent getTarget() {
+        return target;
+    }
+
+    /**
+     * Whether the target is showing, its window is not minimized and some of it is inside its
+     * viewports.
+     */
+    public boolean isVisible() {
+        if (visibilityChanged) {
+            visibilityChanged = false;
+            visible = target == null || computeVisible();
+        }
+        return visible;
+    }
+
+    private boolean computeVisible() {
+        if (!target.isShowing()) {
+            return false;
+        }
+        if (window instanceof Frame && (((Frame) window).getExtendedState() & Frame.ICONIFIED) != 0) {
+            return false;
+        }
+        target.computeVisibleRect(visibleRect);
+        return !visibleRect.isEmpty();
+    }
+
+    // The window to watch for minimizing changes with the target's parents
+    private void watchWindow() {
+        Window ancestor = SwingUtilities.getWindowAncestor(target);
+        if (ancestor != window) {
+            if (window != null) {
+                window.removeWindowStateListener(visibility);
+            }
+            window = ancestor;
+            if (window != null) {
+                window.addWindowStateListener(visibility);
+            }
+        }
+    }
+
+    // On the EDT, from the scheduler's pass
+    void runFrame() {
+        listener.actionPerformed(event);
+    }
+
+    // Every event that can show, hide or move the target only marks the visibility for a recount
+    private final class Visibility extends ComponentAdapter
+            implements HierarchyListener, HierarchyBoundsListener, WindowStateListener {
+
+        @Override
+        public void hierarchyChanged(HierarchyEvent e) {
+            // The target or one of its parents may have moved to another window
+            watchWindow();
+            visibilityChanged = true;
+        }
+
+        @Override
+        public void ancestorMoved(HierarchyEvent e) {
+            visibilityChanged = true;
+        }
+
+        @Override
+        public void ancestorResized(HierarchyEvent e) {
+            visibilityChanged = true;
+        }
+
+        @Override
+        public void componentMoved(ComponentEvent e) {
+            visibilityChanged = true;
+        }
+
+        @Override
+        public void componentResized(ComponentEvent e) {
+            visibilityChanged = true;
+        }
+
+        @Override
+        public void windowStateChanged(WindowEvent e) {
+            visibilityChanged = true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Decides how many fixed simulation steps a frame should run, independent of how often frames
+ * are actually delivered.
+ *
+ * In real-time mode the clock accumulates System.nanoTime() between frames and hands out one step
+ * per stepNanos of elapsed time. When frames arrive late (Swing coalescing Timer events, GC pauses)
+ * it catches up with several steps, but never more than maxSubSteps per frame; any backlog beyond
+ * that is dropped so a long stall cannot snowball into ever longer frames.
+ *
+ * The limit can be lowered while the clock runs (setSubStepLimit), for a drawer that cannot keep
+ * up: it then lets the simulation fall behind wall time rather than spend longer frames catching up.
+ *
+ * In deterministic mode every frame is exactly one step, so frame N always produces the same
+ * picture regardless of the machine - this is what the offline renderer and checks use.
+ */
+public class SimulationClock {
+
+    public static final double DEFAULT_STEPS_PER_SECOND = 60;
+    public static final int DEFAULT_MAX_SUB_STEPS = 5;
+
+    private final long stepNanos;
+    private final int maxSubSteps;
+    private final boolean deterministic;
+    private int subStepLimit;
+
+    private long lastNanos;
+    private long accumulatedNanos;
+    private long stepCount;
+
+    private SimulationClock(long stepNanos, int maxSubSteps, boolean deterministic) {
+        this.stepNanos = stepNanos;
+        this.maxSubSteps = maxSubSteps;
+        this.deterministic = deterministic;
+        this.subStepLimit = maxSubSteps;
+        reset();
+    }
+
+    public static SimulationClock realTime() {
+        return realTime(DEFAULT_STEPS_PER_SECOND, DEFAULT_MAX_SUB_STEPS);
+    }
+
+    public static SimulationClock realTime(double stepsPerSecond) {
+        return realTime(stepsPerSecond, DEFAULT_MAX_SUB_STEPS);
+    }
+
+    public static SimulationClock realTime(double stepsPerSecond, int maxSubSteps) {
+        if (stepsPerSecond <= 0) {
+            throw new IllegalArgumentException("stepsPerSecond must be positive: " + stepsPerSecond);
+        }
+        if (maxSubSteps < 1) {
+            throw new IllegalArgumentException("maxSubSteps must be at least 1: " + maxSubSteps);
+        }
+        return new SimulationClock(Math.round(1e9 / stepsPerSecond), maxSubSteps, false);
+    }
+
+    /**
+     * A clock that runs exactly one step per frame, ignoring wall time.
+     */
+    public static SimulationClock deterministic() {
+        return new SimulationClock(0, 1, true);
+    }
+
+    /**
+     * Returns the number of steps to simulate for a frame delivered now, between 0 and the sub-step
+     * limit (maxSubSteps unless lowered).
+     */
+    public int stepsDue() {
+        return stepsDue(System.nanoTime());
+    }
+
+    int stepsDue(long nowNanos) {
+        if (deterministic) {
+            stepCount++;
+            return 1;
+        }
+        accumulatedNanos += nowNanos - lastNanos;
+        lastNanos = nowNanos;
+
+        long due = accumulatedNanos / stepNanos;
+        if (due > subStepLimit) {
+            // Too far behind: run the bounded number of steps and forget the rest
+            accumulatedNanos = 0;
+            due = subStepLimit;
+        } else {
+            accumulatedNanos -= due * stepNanos;
+        }
+        stepCount += due;
+        return (int) due;
+    }
+
+    /**
+     * Caps the steps per frame at min(limit, maxSubSteps); a deterministic clock ignores it.
+     */
+    public void setSubStepLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1: " + limit);
+        }
+        subStepLimit = Math.min(limit, maxSubSteps);
+    }
+
+    public int getSubStepLimit() {
+        return subStepLimit;
+    }
+
+    /**
+     * Forgets any accumulated time, e.g. after the animation was paused.
+     */
+    public void reset() {
+        lastNanos = System.nanoTime();
+        accumulatedNanos = 0;
+    }
+
+    /**
+     * Total number of steps handed out since the clock was created.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+}
@@ -1,10 +1,8 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.Line2D;
-import java.awt.image.BufferedImage;
 import javax.swing.*;
 
-public class SmoothButterflyCurve extends JPanel implements ActionListener {
+public class SmoothButterflyCurve extends JPanel implements ActionListener, FrameSource {
 
     private static final int WIDTH = 800;
     private static final int HEIGHT = 800;
@@ -14,6 +12,17 @@ public class SmoothButterflyCurve extends JPanel implements ActionListener {
     private static final double STEP_INCREMENT = 0.02;
     private static final int TIMER_DELAY_MS = 16; // Approximately 60 FPS
     private static final double CURVE_SCALE = 60; // Scale factor for the butterfly curve
+    private static final double MAX_PIXEL_ERROR = 0.1; // Accepted error of the sampled curve, in pixels
+
+    // How the curve is cut into segments (see CurveSampler): a segment's midpoint may be off the
+    // curve's by MAX_SEGMENT_ERROR pixels, and it spans at most MAX_SEGMENT_LENGTH pixels and
+    // MAX_SEGMENT_SPAN of t (5 steps), which is also how far the drawn line may lag behind
+    private static final double MAX_SEGMENT_ERROR = 0.5;
+    private static final double MAX_SEGMENT_LENGTH = 24;
+    private static final double MAX_SEGMENT_SPAN = 5 * STEP_INCREMENT;
+
+    // One period of the curve sampled once, interpolated on every step
+    private static final ButterflyTable CURVE = new ButterflyTable(CURVE_SCALE, MAX_PIXEL_ERROR);
 
     // Trail rendering parameters
     private static final float TRAIL_FADE_ALPHA = 0.01f;
@@ -22,114 +31,159 @@ public class SmoothButterflyCurve extends JPanel implements ActionListener {
     private static final float MAIN_STROKE_WIDTH = 2.0f;
     private static final float GLOW_STROKE_WIDTH = 6.0f;
 
+    // Precomputed rainbow colours for the main line and its translucent glow; the glow's colour
+    // alpha and its composite alpha are folded into one, as a backend only takes an ARGB colour
+    private static final HuePalette HUE_PALETTE = new HuePalette(HuePalette.DEFAULT_SIZE);
+    private static final HuePalette GLOW_PALETTE =
+            new HuePalette(HuePalette.DEFAULT_SIZE, Math.round(GLOW_COLOR_ALPHA * GLOW_ALPHA));
 
-    private double t = INITIAL_T;
-    private final Timer timer;
-
-    private final BufferedImage trailCanvas;
-    private final Graphics2D trailG;
-
-    // Pre-instantiated composite and stroke objects for efficiency
-    private final AlphaComposite fadeComposite;
-    private final AlphaComposite drawComposite;
-    private final AlphaComposite clearComposite;
-    private final BasicStroke mainStroke;
-    private final BasicStroke glowStroke;
 
+    private final CurveSampler sampler = new CurveSampler(CURVE, CURVE_SCALE, WIDTH / 2, HEIGHT / 2,
+            MAX_SEGMENT_LENGTH, MAX_SEGMENT_ERROR, MAX_SEGMENT_SPAN);
+    private final CurveSampler.SegmentSink segmentDrawer = this::drawSegment;
+    private long lapStart;
+    private AnimationLoop timer;
+    private SimulationClock clock = SimulationClock.realTime();
 
-    private int prevX = -1, prevY = -1;
+    private final TrailDecay trailDecay = new TrailDecay(TRAIL_FADE_ALPHA);
+    // Each step only draws one short segment, so by default the fade is worked out lazily (see
+    // LazyTrail) and only the still-lit part of the canvas is composited and repainted
+    private RenderBackend trail = RenderBackend.Kind.selected(RenderBackend.Kind.LAZY)
+            .create(WIDTH, HEIGHT, trailDecay, false);
+    private Rectangle dirtyRegion = new Rectangle();
+    private final FrameStats stats = new FrameStats("smooth-butterfly");
 
     public SmoothButterflyCurve() {
+        this(true);
+    }
+
+    SmoothButterflyCurve(boolean animate) {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
         setBackground(Color.BLACK);
 
-        // Initialize BufferedImage for drawing trails
-        trailCanvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
-        trailG = trailCanvas.createGraphics();
-        trailG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Pre-instantiate AlphaComposite objects
-        fadeComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, TRAIL_FADE_ALPHA);
-        drawComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER);
-        clearComposite = AlphaComposite.Clear;
-
-        // Pre-instantiate BasicStroke objects
-        mainStroke = new BasicStroke(MAIN_STROKE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-        glowStroke = new BasicStroke(GLOW_STROKE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-        trailG.setStroke(mainStroke); // Set initial stroke
-
         // Initialize and start the timer
-        timer = new Timer(TIMER_DELAY_MS, this);
-        timer.start();
+        timer = AnimationLoop.Kind.selected(AnimationLoop.Kind.SWING_TIMER).create(TIMER_DELAY_MS, this, this);
+        if (animate) {
+            timer.start();
+        }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        // Draw the accumulated trails onto the panel
-        g.drawImage(trailCanvas, 0, 0, null);
+        renderFrame((Graphics2D) g);
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        // Apply fade effect to the existing trails
-        trailG.setComposite(fadeComposite);
-        trailG.setColor(Color.BLACK);
-        trailG.fillRect(0, 0, WIDTH, HEIGHT);
-        // Reset composite for drawing new segments
-        trailG.setComposite(drawComposite);
-
-        // Calculate current point on the butterfly curve
-        // Butterfly formula: r = e^(cos(t)) - 2cos(4t) + sin^5(t/12)
-        // x = r * sin(t), y = r * cos(t)
-        double r = Math.exp(Math.cos(t)) - 2 * Math.cos(4 * t) - Math.pow(Math.sin(t / 12), 5);
-        double x = Math.sin(t) * r;
-        double y = Math.cos(t) * r;
-
-        // Convert polar coordinates to Cartesian screen coordinates
-        int centerX = WIDTH / 2;
-        int centerY = HEIGHT / 2;
-        int px = centerX + (int) (x * CURVE_SCALE);
-        int py = centerY - (int) (y * CURVE_SCALE); // Y-axis inverted for Swing (0 at top)
-
-        // Determine color based on current 't' for a rainbow effect
-        float hue = (float) (t % (2 * Math.PI)) / (float) (2 * Math.PI);
-        Color currentColor = Color.getHSBColor(hue, 1f, 1f);
-        trailG.setColor(currentColor);
-
-        // Draw line segments if a previous point exists
-        if (prevX != -1 && prevY != -1) {
-            // Draw glowing back layer with reduced opacity and thicker stroke
-            trailG.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, GLOW_ALPHA));
-            trailG.setStroke(glowStroke);
-            trailG.setColor(new Color(currentColor.getRed(), currentColor.getGreen(), currentColor.getBlue(), GLOW_COLOR_ALPHA));
-            trailG.draw(new Line2D.Double(prevX, prevY, px, py));
-
-            // Draw main bright line on top
-            trailG.setComposite(drawComposite); // Reset composite
-            trailG.setStroke(mainStroke);
-            trailG.setColor(currentColor);
-            trailG.draw(new Line2D.Double(prevX, prevY, px, py));
+        stats.tick();
+        stepFrame();
+        repaint(dirtyRegion); // Only the part of the trail that changed
+        if (stats.isHudVisible()) {
+            repaint(stats.getHudBounds());
         }
+    }
+
+    @Override
+    public int getFrameWidth() {
+        return WIDTH;
+    }
+
+    @Override
+    public int getFrameHeight() {
+        return HEIGHT;
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        // Draw the accumulated trails onto the panel
+        long start = stats.paintStarted();
+        trail.blit(g2, 0, 0);
+        stats.paintFinished(start);
+        stats.drawHud(g2);
+    }
+
+    @Override
+    public void stepFrame() {
+        for (int steps = clock.stepsDue(); steps > 0; steps--) {
+            simulateStep();
+        }
+        long start = System.nanoTime();
+        dirtyRegion = trail.flush();
+        stats.lap(FrameStats.Stage.FADE, start);
+        stats.endFrame();
+    }
+
+    @Override
+    public void setSimulationClock(SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public FrameStats getFrameStats() {
+        return stats;
+    }
+
+    @Override
+    public void setAnimationLoop(AnimationLoop.Kind kind) {
+        timer = kind.replace(timer, this, this);
+    }
+
+    @Override
+    public AnimationLoop getAnimationLoop() {
+        return timer;
+    }
+
+    /**
+     * Moves the trail to a new canvas of the given kind; it starts over there.
+     */
+    @Override
+    public void setRenderBackend(RenderBackend.Kind kind) {
+        trail.dispose();
+        trail = kind.create(WIDTH, HEIGHT, trailDecay, false);
+        dirtyRegion = trail.flush();
+        repaint();
+    }
+
+    /**
+     * Sets how often the panel repaints; the simulation speed is set separately by the clock.
+     */
+    public void setFrameRate(int framesPerSecond) {
+        timer.setDelay(Math.max(1, 1000 / framesPerSecond));
+    }
+
+    private void simulateStep() {
+        // Fade the existing trails; the lazy trail defers it until a pixel is drawn on or shown
+        long time = System.nanoTime();
+        trail.fade();
+        lapStart = stats.lap(FrameStats.Stage.FADE, time);
+
+        // Move one step along the butterfly curve, r = e^(cos(t)) - 2cos(4t) + sin^5(t/12),
+        // x = r * sin(t), y = r * cos(t); the sampler hands back the segments that are now final
+        sampler.advance(STEP_INCREMENT, segmentDrawer);
+        stats.lap(FrameStats.Stage.GUIDES, lapStart);
+    }
+
+    // One segment of the curve, coloured by t at its end for a rainbow effect
+    private void drawSegment(double x0, double y0, double x1, double y1, double t) {
+        lapStart = stats.lap(FrameStats.Stage.GUIDES, lapStart);
+        int hueIndex = HUE_PALETTE.indexForAngle(t);
+
+        // Draw glowing back layer with reduced opacity and thicker stroke
+        trail.line(x0, y0, x1, y1, GLOW_STROKE_WIDTH, GLOW_PALETTE.get(hueIndex).getRGB());
 
-        // Update previous point and increment 't' for the next frame
-        prevX = px;
-        prevY = py;
-        t += STEP_INCREMENT;
-        repaint(); // Request a repaint to update the display
+        // Draw main bright line on top
+        trail.line(x0, y0, x1, y1, MAIN_STROKE_WIDTH, HUE_PALETTE.get(hueIndex).getRGB());
+        lapStart = stats.lap(FrameStats.Stage.TRAILS, lapStart);
     }
 
     /**
      * Resets the animation by clearing the trail canvas and resetting parameters.
      */
     public void reset() {
-        trailG.setComposite(clearComposite);
-        trailG.setColor(new Color(0, 0, 0, 0)); // Transparent black
-        trailG.fillRect(0, 0, WIDTH, HEIGHT);
-        trailG.setComposite(drawComposite); // Reset composite for drawing
-        t = INITIAL_T;
-        prevX = -1;
-        prevY = -1;
+        trail.clear();
+        dirtyRegion = trail.flush();
+        sampler.reset(INITIAL_T);
         repaint();
     }
 
@@ -140,6 +194,7 @@ public class SmoothButterflyCurve extends JPanel implements ActionListener {
         if (timer.isRunning()) {
             timer.stop();
         } else {
+            clock.reset(); // don't try to catch up on the paused time
             timer.start();
         }
     }
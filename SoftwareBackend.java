@@ -0,0 +1,137 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * The software backend: everything is done on the int[] pixels, by LineRasterizer, Sprite.stamp
+ * and TrailDecay, so it runs the same with or without a display. Only blit() goes through Java2D.
+ * Lines have butt ends rather than the round caps Java2D draws.
+ */
+public class SoftwareBackend implements RenderBackend {
+
+    private final int width;
+    private final int height;
+    private final TrailDecay decay;
+    private final boolean opaque;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Rectangle bounds;
+    private final CanvasPool pool;
+    // One rasterizer per line width in use; a demo only uses a few
+    private float[] widths = new float[0];
+    private LineRasterizer[] rasterizers = new LineRasterizer[0];
+
+    public SoftwareBackend(int width, int height, TrailDecay decay, boolean opaque) {
+        this(opaque
+                ? GridLayers.createOpaqueCanvas(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), decay, null);
+    }
+
+    /**
+     * A surface on a canvas from pool (or any TYPE_INT_RGB / TYPE_INT_ARGB canvas, with pool
+     * null), which dispose() hands back to it. It is opaque if the canvas is.
+     */
+    SoftwareBackend(BufferedImage image, TrailDecay decay, CanvasPool pool) {
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.decay = decay;
+        this.opaque = image.getTransparency() == Transparency.OPAQUE;
+        this.image = image;
+        this.pool = pool;
+        pixels = TrailDecay.pixelsOf(image);
+        bounds = new Rectangle(0, 0, width, height);
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.SOFTWARE;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pixels, 0, width * height, 0);
+    }
+
+    @Override
+    public void fade() {
+        decay.apply(pixels, width, height);
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1, float width, int argb) {
+        rasterizer(width).drawLine(pixels, this.width, height, x0, y0, x1, y1, argb);
+    }
+
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, float width, int[] argb) {
+        LineRasterizer rasterizer = rasterizer(width);
+        for (int i = 0; i + 1 < count; i++) {
+            rasterizer.drawLine(pixels, this.width, height, xs[i], ys[i], xs[i + 1], ys[i + 1], argb[i]);
+        }
+    }
+
+    @Override
+    public void dot(Sprite sprite, int x, int y) {
+        if (opaque) {
+            sprite.stampOpaque(pixels, width, height, x, y);
+        } else {
+            sprite.stamp(pixels, width, height, x, y);
+        }
+    }
+
+    @Override
+    public Rectangle flush() {
+        return bounds;
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y) {
+        g2.drawImage(image, x, y, null);
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y, Rectangle area, int scale) {
+        g2.drawImage(image, x + area.x * scale, y + area.y * scale,
+                x + (area.x + area.width) * scale, y + (area.y + area.height) * scale,
+                area.x, area.y, area.x + area.width, area.y + area.height, null);
+    }
+
+    @Override
+    public int[] pixels() {
+        return pixels;
+    }
+
+    @Override
+    public void dispose() {
+        if (pool != null) {
+            pool.release(image);
+        }
+    }
+
+    /**
+     * The rasterizer this surface draws lines of the given width with, for batches of segments.
+     */
+    public LineRasterizer rasterizer(float width) {
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] == width) {
+                return rasterizers[i];
+            }
+        }
+        int n = widths.length;
+        widths = Arrays.copyOf(widths, n + 1);
+        rasterizers = Arrays.copyOf(rasterizers, n + 1);
+        widths[n] = width;
+        rasterizers[n] = new LineRasterizer(width, opaque);
+        return rasterizers[n];
+    }
+}
@@ -0,0 +1,156 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * A small antialiased shape rendered once into an image and then blitted with drawImage.
+ * Java2D's fillOval/drawOval build a new Ellipse2D (and path iterator) on every call when
+ * antialiasing is on; blitting a prerendered sprite allocates nothing and gives the same pixels,
+ * because the sprites are only ever drawn at integer offsets.
+ *
+ * stamp() blends the sprite straight into the int[] pixels of a TYPE_INT_ARGB canvas, for trail
+ * canvases whose pixels are already being worked on directly (see {@link TrailDecay}).
+ */
+public class Sprite {
+
+    private final BufferedImage image;
+    private final int[] argb;
+    private final int offset;
+
+    private Sprite(BufferedImage image, int offset) {
+        this.image = image;
+        this.argb = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        this.offset = offset;
+    }
+
+    /**
+     * The equivalent of fillOval(x, y, diameter, diameter) with antialiasing on.
+     */
+    public static Sprite disc(int diameter, Color color) {
+        BufferedImage image = new BufferedImage(diameter, diameter, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(color);
+        g2.fillOval(0, 0, diameter, diameter);
+        g2.dispose();
+        return new Sprite(image, 0);
+    }
+
+    /**
+     * The equivalent of drawOval(x, y, diameter, diameter) with a 1px stroke and antialiasing on.
+     */
+    public static Sprite ring(int diameter, Color color) {
+        // The stroke reaches half a pixel outside the oval, so leave a one pixel border
+        BufferedImage image = new BufferedImage(diameter + 2, diameter + 2, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setStroke(new BasicStroke(1f));
+        g2.setColor(color);
+        g2.drawOval(1, 1, diameter, diameter);
+        g2.dispose();
+        return new Sprite(image, 1);
+    }
+
+    /**
+     * Draws the sprite where fillOval / drawOval with the same x and y would have drawn it.
+     */
+    public void draw(Graphics2D g2, int x, int y) {
+        g2.drawImage(image, x - offset, y - offset, null);
+    }
+
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    /**
+     * How far up and left of the x and y given to draw() the sprite's image starts.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Blends the sprite SRC_OVER into a width x height TYPE_INT_ARGB pixel array, clipped to its
+     * bounds, at the same position draw() would use.
+     */
+    public void stamp(int[] pixels, int width, int height, int x, int y) {
+        stamp(pixels, width, height, x, y, false);
+    }
+
+    /**
+     * Like stamp(), into the pixels of an opaque TYPE_INT_RGB canvas (see {@link #blendOpaque}).
+     */
+    public void stampOpaque(int[] pixels, int width, int height, int x, int y) {
+        stamp(pixels, width, height, x, y, true);
+    }
+
+    private void stamp(int[] pixels, int width, int height, int x, int y, boolean opaque) {
+        int size = image.getWidth();
+        x -= offset;
+        y -= offset;
+        int fromRow = Math.max(0, -y);
+        int toRow = Math.min(image.getHeight(), height - y);
+        int fromCol = Math.max(0, -x);
+        int toCol = Math.min(size, width - x);
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = fromCol; col < toCol; col++) {
+                int src = argb[row * size + col];
+                int i = (y + row) * width + x + col;
+                pixels[i] = opaque ? blendOpaque(src, pixels[i]) : blend(src, pixels[i]);
+            }
+        }
+    }
+
+    // RECIPROCALS[d] = ceil(2^32 / d): (x * RECIPROCALS[d]) >>> 32 == x / d for every x the blend
+    // produces (x < 2^17), without the cost of an integer division per channel
+    private static final long[] RECIPROCALS = new long[256];
+
+    static {
+        for (int d = 1; d < 256; d++) {
+            RECIPROCALS[d] = ((1L << 32) + d - 1) / d;
+        }
+    }
+
+    // SRC_OVER for non-premultiplied ARGB
+    static int blend(int src, int dst) {
+        int sa = src >>> 24;
+        if (sa == 255) {
+            return src;
+        }
+        if (sa == 0) {
+            return dst;
+        }
+        int da = dst >>> 24;
+        if (da == 0) {
+            return src;
+        }
+        int dstWeight = (int) ((da * (255 - sa) * RECIPROCALS[255]) >>> 32);
+        int outA = sa + dstWeight;
+        long reciprocal = RECIPROCALS[outA];
+        int r = (int) (((((src >> 16) & 0xFF) * sa + ((dst >> 16) & 0xFF) * dstWeight) * reciprocal) >>> 32);
+        int g = (int) (((((src >> 8) & 0xFF) * sa + ((dst >> 8) & 0xFF) * dstWeight) * reciprocal) >>> 32);
+        int b = (int) ((((src & 0xFF) * sa + (dst & 0xFF) * dstWeight) * reciprocal) >>> 32);
+        return (outA << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    // SRC_OVER onto an opaque pixel, e.g. of a TYPE_INT_RGB canvas that is black where nothing was
+    // drawn; the top byte of dst is ignored and the result is opaque
+    static int blendOpaque(int src, int dst) {
+        int sa = src >>> 24;
+        if (sa == 255) {
+            return src;
+        }
+        if (sa == 0) {
+            return dst;
+        }
+        int da = 255 - sa;
+        long reciprocal = RECIPROCALS[255];
+        int r = (int) (((((src >> 16) & 0xFF) * sa + ((dst >> 16) & 0xFF) * da + 127) * reciprocal) >>> 32);
+        int g = (int) (((((src >> 8) & 0xFF) * sa + ((dst >> 8) & 0xFF) * da + 127) * reciprocal) >>> 32);
+        int b = (int) ((((src & 0xFF) * sa + (dst & 0xFF) * da + 127) * reciprocal) >>> 32);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+}
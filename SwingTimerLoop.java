@@ -0,0 +1,45 @@
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * The drawers' original pacing: a javax.swing.Timer, whose events the EDT coalesces when it falls
+ * behind. Its resolution is a millisecond, so a 16 ms delay runs at 62.5 Hz, not 60.
+ */
+public class SwingTimerLoop implements AnimationLoop {
+
+    private final Timer timer;
+
+    public SwingTimerLoop(int delayMs, ActionListener listener) {
+        timer = new Timer(delayMs, listener);
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.SWING_TIMER;
+    }
+
+    @Override
+    public void start() {
+        timer.start();
+    }
+
+    @Override
+    public void stop() {
+        timer.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    @Override
+    public void setDelay(int delayMs) {
+        timer.setDelay(delayMs);
+    }
+
+    @Override
+    public int getDelay() {
+        return timer.getDelay();
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Steps the trail canvas of a Lissajous grid in parallel, one band of cell rows per task.
+ *
+ * Cell (row, col) draws its figure around (dotX[col], dotY[row]) and never leaves its own
+ * cellSize square, so the trail segments of different cell rows touch disjoint pixel rows. The
+ * canvas may hold the whole grid or just a window of it (see {@link TrailViewport}); either way
+ * positions are in canvas coordinates and the first cell row starts at pixel row gridTop. Each
+ * band fades its own pixel rows with {@link TrailDecay#applyRows} and then rasterizes its own
+ * cells' segments with {@link LineRasterizer}; no two tasks ever write the same pixel, so nothing
+ * is locked, and invokeAll returning is the point where the bands make up one finished frame.
+ * The output is identical to fading the whole canvas and then drawing every segment.
+ *
+ * The canvas may also be smaller than the grid by a scale factor (half resolution, see
+ * {@link QualityGovernor}): positions and cell sizes stay in grid units and are scaled on the way
+ * to the canvas, segment end points keeping their fraction of a pixel.
+ *
+ * As in TrailDecay the band tasks are reused between steps. step() is not thread-safe: use one
+ * instance per canvas.
+ */
+public class TrailBands {
+
+    private final TrailDecay decay;
+    private final LineRasterizer lines;
+    private final int cellSize;
+
+    private int[] pixels;
+    private int width;
+    private int height;
+    private int columns;
+    private float scale = 1f;
+    private int[] colors;
+    private int[] floor;
+    private float[] segments = new float[0];
+    private Band[] bands = new Band[0];
+
+    // The dot positions of the step in progress, read by every band
+    private int[] previousDotX;
+    private int[] previousDotY;
+    private int[] dotX;
+    private int[] dotY;
+    private boolean drawSegments;
+
+    public TrailBands(TrailDecay decay, LineRasterizer lines, int cellSize) {
+        this.decay = decay;
+        this.lines = lines;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Points the bands at a (new) width x height canvas holding columns x rows cells, the first
+     * row of them starting at pixel row gridTop; colors[row * columns + col] is the trail colour
+     * of cell (row, col).
+     */
+    public void setGrid(int[] pixels, int width, int height, int columns, int rows, int gridTop, int[] colors) {
+        setGrid(pixels, width, height, columns, rows, gridTop, colors, 1f);
+    }
+
+    /**
+     * Like setGrid above, for a canvas scale times the size of the grid: gridTop and the dot
+     * positions passed to step() are in grid units, the canvas pixels at (x * scale, y * scale).
+     */
+    public void setGrid(int[] pixels, int width, int height, int columns, int rows, int gridTop, int[] colors,
+                        float scale) {
+        this.pixels = pixels;
+        this.scale = scale;
+        this.width = width;
+        this.height = height;
+        this.columns = columns;
+        this.colors = colors;
+        if (segments.length != 4 * columns * rows) {
+            segments = new float[4 * columns * rows];
+        }
+
+        int bandCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), rows));
+        bands = new Band[bandCount];
+        for (int i = 0; i < bandCount; i++) {
+            int fromCellRow = i * rows / bandCount;
+            int toCellRow = (i + 1) * rows / bandCount;
+            // The first band also owns any margin above the grid, the last one anything below it
+            int fromPixelRow = i == 0 ? 0 : (int) ((gridTop + fromCellRow * cellSize) * scale);
+            int toPixelRow = i == bandCount - 1 ? height : (int) ((gridTop + toCellRow * cellSize) * scale);
+            bands[i] = new Band(fromCellRow, toCellRow, fromPixelRow, toPixelRow);
+        }
+    }
+
+    /**
+     * Keeps the canvas at least as bright as floor (a canvas of the same size) when fading, e.g.
+     * for figures drawn in full; null fades everything to black.
+     */
+    public void setFloor(int[] floor) {
+        this.floor = floor;
+    }
+
+    /**
+     * Fades the canvas by one step and, if drawSegments, draws every cell's segment from its
+     * previous dot to its current one.
+     */
+    public void step(int[] previousDotX, int[] previousDotY, int[] dotX, int[] dotY, boolean drawSegments) {
+        this.previousDotX = previousDotX;
+        this.previousDotY = previousDotY;
+        this.dotX = dotX;
+        this.dotY = dotY;
+        this.drawSegments = drawSegments;
+        if (bands.length == 1) {
+            bands[0].compute();
+            return;
+        }
+        for (Band band : bands) {
+            band.reinitialize();
+        }
+        ForkJoinTask.invokeAll(bands);
+    }
+
+    private void stepRows(int fromCellRow, int toCellRow, int fromPixelRow, int toPixelRow) {
+        if (floor == null) {
+            decay.applyRows(pixels, width, fromPixelRow, toPixelRow);
+        } else {
+            decay.applyRows(pixels, width, fromPixelRow, toPixelRow, floor);
+        }
+        if (!drawSegments) {
+            return;
+        }
+        // Each band fills only its own slice of the segment batch
+        int first = fromCellRow * columns;
+        float scale = this.scale;
+        for (int row = fromCellRow; row < toCellRow; row++) {
+            for (int col = 0; col < columns; col++) {
+                int s = 4 * (row * columns + col);
+                segments[s] = previousDotX[col] * scale;
+                segments[s + 1] = previousDotY[row] * scale;
+                segments[s + 2] = dotX[col] * scale;
+                segments[s + 3] = dotY[row] * scale;
+            }
+        }
+        lines.drawSegments(pixels, width, height, segments, colors, first, (toCellRow - fromCellRow) * columns);
+    }
+
+    @SuppressWarnings("serial")
+    private final class Band extends RecursiveAction {
+        private final int fromCellRow;
+        private final int toCellRow;
+        private final int fromPixelRow;
+        private final int toPixelRow;
+
+        Band(int fromCellRow, int toCellRow, int fromPixelRow, int toPixelRow) {
+            this.fromCellRow = fromCellRow;
+            this.toCellRow = toCellRow;
+            this.fromPixelRow = fromPixelRow;
+            this.toPixelRow = toPixelRow;
+        }
+
+        @Override
+        protected void compute() {
+            stepRows(fromCellRow, toCellRow, fromPixelRow, toPixelRow);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fades a TYPE_INT_ARGB (or opaque TYPE_INT_RGB) trail canvas by working directly on its int[]
+ * pixels instead of blending a translucent black fillRect over it through Java2D.
+ *
+ * Each colour channel is mapped through a lookup table (v -> floor(v * (1 - fadeAlpha))),
+ * which always moves a non-zero channel down by at least one step, so trails really reach
+ * black instead of leaving ghost pixels the way 8-bit SRC_OVER rounding does. The table also
+ * snaps each channel to 0 on its own once it drops below the threshold; a pixel whose channels
+ * are then all 0 is cleared to 0, which is transparent on an ARGB canvas (the drawers show it
+ * as black) and black on an opaque one. Rows are split into bands that are faded in parallel;
+ * the band tasks are reused between frames, so a steady-state fade allocates nothing.
+ *
+ * apply() is not thread-safe: use one instance per canvas.
+ */
+public class TrailDecay {
+
+    public static final int DEFAULT_THRESHOLD = 4;
+
+    // Below this many rows per band the fork/join overhead outweighs the work
+    private static final int MIN_ROWS_PER_BAND = 64;
+
+    private final float fadeAlpha;
+    private final int[] lut = new int[256];
+    private Band[] bands = new Band[0];
+
+    // powers[k * 256 + v] is channel value v faded k times, for k < stepsToBlack(); built on the
+    // first fade() call, since only lazily faded canvases need it
+    private byte[] powers;
+    private int powerCount;
+
+    public TrailDecay(float fadeAlpha) {
+        this(fadeAlpha, DEFAULT_THRESHOLD);
+    }
+
+    public TrailDecay(float fadeAlpha, int threshold) {
+        if (fadeAlpha < 0f || fadeAlpha > 1f) {
+            throw new IllegalArgumentException("fadeAlpha must be in [0, 1]: " + fadeAlpha);
+        }
+        this.fadeAlpha = fadeAlpha;
+        float keep = 1f - fadeAlpha;
+        for (int v = 0; v < 256; v++) {
+            int faded = (int) (v * keep);
+            lut[v] = faded < threshold ? 0 : faded;
+        }
+    }
+
+    /**
+     * How much of each channel one fade takes away, as given to the constructor.
+     */
+    public float getFadeAlpha() {
+        return fadeAlpha;
+    }
+
+    /**
+     * Returns the backing array of a TYPE_INT_ARGB or TYPE_INT_RGB image. Holding on to it is fine;
+     * the image keeps using the same array for its whole life.
+     */
+    public static int[] pixelsOf(BufferedImage canvas) {
+        int type = canvas.getType();
+        if (type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException(
+                    "Expected a TYPE_INT_ARGB or TYPE_INT_RGB canvas, got type " + type);
+        }
+        return ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+    }
+
+    public void apply(BufferedImage canvas) {
+        apply(pixelsOf(canvas), canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Fades the whole width x height canvas, using several cores when it is large enough.
+     */
+    public void apply(int[] pixels, int width, int height) {
+        int bandCount = Math.min(Runtime.getRuntime().availableProcessors(),
+                height / MIN_ROWS_PER_BAND);
+        if (bandCount <= 1) {
+            applyRows(pixels, width, 0, height);
+            return;
+        }
+        if (bands.length != bandCount) {
+            bands = new Band[bandCount];
+            for (int i = 0; i < bandCount; i++) {
+                bands[i] = new Band();
+            }
+        }
+        for (int i = 0; i < bandCount; i++) {
+            bands[i].reinitialize();
+            bands[i].set(pixels, width, i * height / bandCount, (i + 1) * height / bandCount);
+        }
+        ForkJoinTask.invokeAll(bands);
+    }
+
+    /**
+     * Fades rows [fromRow, toRow) on the calling thread.
+     */
+    public void applyRows(int[] pixels, int width, int fromRow, int toRow) {
+        applyRange(pixels, fromRow * width, toRow * width);
+    }
+
+    /**
+     * Fades rows [fromRow, toRow) on the calling thread, but no channel of a pixel below that of
+     * the same pixel in floor: whatever is drawn in floor stays lit (see {@link #raise}).
+     */
+    public void applyRows(int[] pixels, int width, int fromRow, int toRow, int[] floor) {
+        int[] lut = this.lut;
+        for (int i = fromRow * width, end = toRow * width; i < end; i++) {
+            int p = pixels[i];
+            int f = floor[i];
+            // A pixel at its floor stays there, and most pixels are at a floor of 0
+            if (p == f) {
+                continue;
+            }
+            if (p == 0) {
+                pixels[i] = f;
+                continue;
+            }
+            int r = lut[(p >> 16) & 0xFF];
+            int g = lut[(p >> 8) & 0xFF];
+            int b = lut[p & 0xFF];
+            p = (r | g | b) == 0 ? 0 : (p & 0xFF000000) | (r << 16) | (g << 8) | b;
+            pixels[i] = f == 0 ? p : brighter(p, f);
+        }
+    }
+
+    /**
+     * Raises the first length pixels to at least floor, channel by channel.
+     */
+    public static void raise(int[] pixels, int[] floor, int length) {
+        for (int i = 0; i < length; i++) {
+            if (floor[i] != 0) {
+                pixels[i] = brighter(pixels[i], floor[i]);
+            }
+        }
+    }
+
+    // The larger of each channel of p and f, alpha included
+    private static int brighter(int p, int f) {
+        return Math.max(p >>> 24, f >>> 24) << 24
+                | Math.max((p >> 16) & 0xFF, (f >> 16) & 0xFF) << 16
+                | Math.max((p >> 8) & 0xFF, (f >> 8) & 0xFF) << 8
+                | Math.max(p & 0xFF, f & 0xFF);
+    }
+
+    /**
+     * Fades the w x h rectangle at (x, y) on the calling thread, e.g. a single cell of a grid.
+     */
+    public void applyRect(int[] pixels, int width, int x, int y, int w, int h) {
+        for (int row = y; row < y + h; row++) {
+            applyRange(pixels, row * width + x, row * width + x + w);
+        }
+    }
+
+    /**
+     * One pixel faded the given number of times, the same as that many apply() calls would leave
+     * it. Channels fade independently, so this is a single lookup per channel rather than a loop.
+     */
+    public int fade(int pixel, int times) {
+        if (pixel == 0 || times <= 0) {
+            return pixel;
+        }
+        if (powers == null) {
+            buildPowers();
+        }
+        if (times >= powerCount) {
+            return powerCount == 0 ? fadeStepwise(pixel, times) : 0;
+        }
+        byte[] powers = this.powers;
+        int base = times << 8;
+        int r = powers[base + ((pixel >> 16) & 0xFF)] & 0xFF;
+        int g = powers[base + ((pixel >> 8) & 0xFF)] & 0xFF;
+        int b = powers[base + (pixel & 0xFF)] & 0xFF;
+        return (r | g | b) == 0 ? 0 : (pixel & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * How many fades it takes at most for a pixel to reach 0, i.e. how far back in time anything
+     * still visible on the canvas can have been drawn; Integer.MAX_VALUE if it never fades out.
+     */
+    public int stepsToBlack() {
+        int steps = 0;
+        for (int v = 255; v != 0; v = lut[v]) {
+            if (lut[v] == v) {
+                return Integer.MAX_VALUE;
+            }
+            steps++;
+        }
+        return steps;
+    }
+
+    // Fades that never reach black (fadeAlpha small enough that lut[v] == v for some v) get no
+    // table; powerCount stays 0 and fade() falls back to stepping, stopping once nothing changes
+    private void buildPowers() {
+        int steps = stepsToBlack();
+        powerCount = steps == Integer.MAX_VALUE ? 0 : steps;
+        powers = new byte[powerCount << 8];
+        for (int v = 0; v < 256 && powerCount > 0; v++) {
+            int faded = v;
+            for (int k = 0; k < powerCount; k++) {
+                powers[(k << 8) + v] = (byte) faded;
+                faded = lut[faded];
+            }
+        }
+    }
+
+    private int fadeStepwise(int pixel, int times) {
+        for (int i = 0; i < times && pixel != 0; i++) {
+            int r = lut[(pixel >> 16) & 0xFF];
+            int g = lut[(pixel >> 8) & 0xFF];
+            int b = lut[pixel & 0xFF];
+            int faded = (r | g | b) == 0 ? 0 : (pixel & 0xFF000000) | (r << 16) | (g << 8) | b;
+            if (faded == pixel) {
+                break;
+            }
+            pixel = faded;
+        }
+        return pixel;
+    }
+
+    private void applyRange(int[] pixels, int from, int to) {
+        int[] lut = this.lut;
+        for (int i = from; i < to; i++) {
+            int p = pixels[i];
+            if (p == 0) {
+                continue;
+            }
+            int r = lut[(p >> 16) & 0xFF];
+            int g = lut[(p >> 8) & 0xFF];
+            int b = lut[p & 0xFF];
+            pixels[i] = (r | g | b) == 0 ? 0 : (p & 0xFF000000) | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    // Never serialized; RecursiveAction is Serializable only through ForkJoinTask
+    @SuppressWarnings("serial")
+    private final class Band extends RecursiveAction {
+        private int[] pixels;
+        private int width;
+        private int fromRow;
+        private int toRow;
+
+        void set(int[] pixels, int width, int fromRow, int toRow) {
+            this.pixels = pixels;
+            this.width = width;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            applyRows(pixels, width, fromRow, toRow);
+        }
+    }
+}
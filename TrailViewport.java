@@ -0,0 +1,497 @@
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * The trails of a Lissajous grid that may be far larger than the screen. A canvas for the whole
+ * grid would not even fit in memory at 100 x 100 cells of 100px, so only the window of cells
+ * around the visible rectangle has a trail canvas, and only those cells are faded and drawn.
+ *
+ * Off-screen cells cost nothing beyond their dot positions, which the drawer computes anyway (one
+ * oscillator per column and per row). The positions of the last {@link TrailDecay#stepsToBlack()}
+ * steps are kept in a ring, and when scrolling brings a cell into the window its trail is rebuilt
+ * by replaying those steps into its square; anything older has faded to black by now. Cells that
+ * stay in the window are copied across, so scrolling never restarts a trail that is on screen.
+ *
+ * The window spans one cell more than the visible rectangle in each direction, so its size only
+ * changes when the viewport is resized, and scrolling reuses the same two canvases. They are
+ * opaque, black where there is no trail, so drawing the window is a plain copy.
+ *
+ * Resizing the grid keeps the columns and rows both sizes have, with their recorded positions
+ * and their trails; the cells it adds start with no trail. The canvases come from a small
+ * CanvasPool, so a viewport that keeps changing size reuses the same few arrays.
+ *
+ * The canvases can also be kept at a fraction of the panel's resolution (setResolution, for
+ * QualityGovernor): positions are still recorded at full resolution and scaled on the way to the
+ * canvas, so changing resolution is a replay like any other window move.
+ *
+ * The canvases are RenderBackend surfaces. A SOFTWARE surface (the default) is worked on as an
+ * int[]: bands of cell rows in parallel, cells copied across and replayed lazily as above. Other
+ * surfaces keep their pixels out of reach, so they go through fade() and line(), and a move
+ * replays the whole window from the recorded positions.
+ */
+public class TrailViewport {
+
+    /**
+     * The most of a grid the demos show at once, in a scroll pane's viewport or as an offline
+     * frame. The window follows the view, so bounding the view bounds the trail canvases.
+     */
+    public static final int MAX_VIEW_WIDTH = 1600;
+    public static final int MAX_VIEW_HEIGHT = 1200;
+
+    // Replay limit for a fade so slow that trails never reach black
+    private static final int MAX_HISTORY = 1024;
+    // Room for the two canvases a resize of the window lets go of
+    private static final int POOLED_CANVASES = 2;
+
+    private final int margin;
+    private final int cellSize;
+    private final float lineWidth;
+    private final TrailDecay decay;
+    private LineRasterizer lines;
+    private TrailBands bands;
+    private final int historySize;
+    // How far outside its end points a segment can touch pixels, with antialiasing
+    private final int pad;
+    private RenderBackend.Kind kind = RenderBackend.Kind.selected(RenderBackend.Kind.SOFTWARE);
+    private final CanvasPool pool = new CanvasPool(POOLED_CANVASES);
+    // The canvases have 1 / divisor of the panel's resolution, cellPixels to a cell
+    private int divisor = 1;
+    private double scale = 1;
+    private int cellPixels;
+
+    private int gridSize;
+    private Color[][] colors;
+
+    // Position p of column c is historyX[(p % historySize) * gridSize + c], likewise for rows
+    private int[] historyX;
+    private int[] historyY;
+    private long recorded;
+    // Segments only start at positions >= trailStart; clear() moves it past the latest position
+    private long trailStart;
+    // Likewise per column and row, for the ones a resize added
+    private long[] columnStart;
+    private long[] rowStart;
+
+    // The window: columns x rows cells from (firstColumn, firstRow), drawn at (originX, originY)
+    private int firstColumn;
+    private int firstRow;
+    private int columns;
+    private int rows;
+    private int originX;
+    private int originY;
+    // Set by a resize: the window has to be rebuilt even if it covers the same cells
+    private boolean stale;
+    private RenderBackend canvas;
+    private RenderBackend spareCanvas;
+    private int[] pixels;
+    private int[] windowArgb = new int[0];
+    private int[] previousX = new int[0];
+    private int[] previousY = new int[0];
+    private int[] currentX = new int[0];
+    private int[] currentY = new int[0];
+    private int[] replayStamps = new int[0];
+    private final Rectangle canvasArea = new Rectangle();
+
+    public TrailViewport(int margin, int cellSize, float lineWidth, TrailDecay decay) {
+        this.margin = margin;
+        this.cellSize = cellSize;
+        this.lineWidth = lineWidth;
+        this.decay = decay;
+        this.lines = new LineRasterizer(lineWidth, true);
+        this.bands = new TrailBands(decay, lines, cellSize);
+        this.historySize = Math.min(decay.stepsToBlack(), MAX_HISTORY) + 1;
+        this.pad = (int) Math.ceil(lineWidth) + 1;
+        this.cellPixels = cellSize;
+    }
+
+    /**
+     * Starts over with an empty gridSize x gridSize grid; the first trail segments are drawn on the
+     * second step, and the window is picked on the next setVisibleRect().
+     */
+    public void setGrid(int gridSize, Color[][] colors) {
+        this.gridSize = gridSize;
+        this.colors = colors;
+        historyX = new int[historySize * gridSize];
+        historyY = new int[historySize * gridSize];
+        columnStart = new long[gridSize];
+        rowStart = new long[gridSize];
+        recorded = 0;
+        trailStart = 0;
+        dropWindow();
+    }
+
+    /**
+     * Changes the grid to gridSize x gridSize cells, keeping the trails of the columns and rows
+     * both sizes have; the others start theirs from dotX / dotY, the dots' current positions in
+     * the new grid. The window follows on the next setVisibleRect(), which copies the cells that
+     * stay in it as scrolling does. Trails already drawn keep their old colours until they fade.
+     */
+    public void resizeGrid(int gridSize, Color[][] colors, int[] dotX, int[] dotY) {
+        if (recorded == 0) {
+            setGrid(gridSize, colors);
+            return;
+        }
+        int kept = Math.min(this.gridSize, gridSize);
+        int[] newHistoryX = new int[historySize * gridSize];
+        int[] newHistoryY = new int[historySize * gridSize];
+        for (int slot = 0; slot < historySize; slot++) {
+            System.arraycopy(historyX, slot * this.gridSize, newHistoryX, slot * gridSize, kept);
+            System.arraycopy(historyY, slot * this.gridSize, newHistoryY, slot * gridSize, kept);
+        }
+        columnStart = Arrays.copyOf(columnStart, gridSize);
+        rowStart = Arrays.copyOf(rowStart, gridSize);
+        Arrays.fill(columnStart, kept, gridSize, recorded - 1);
+        Arrays.fill(rowStart, kept, gridSize, recorded - 1);
+
+        this.gridSize = gridSize;
+        this.colors = colors;
+        historyX = newHistoryX;
+        historyY = newHistoryY;
+        // The latest position becomes where the new columns and rows start from
+        int latest = slot(recorded - 1);
+        System.arraycopy(dotX, kept, historyX, latest + kept, gridSize - kept);
+        System.arraycopy(dotY, kept, historyY, latest + kept, gridSize - kept);
+        stale = true;
+    }
+
+    /**
+     * Switches the canvases to the given kind of surface; the window is rebuilt from the recorded
+     * positions on the next setVisibleRect(), so the trails carry on where they were.
+     */
+    public void setRenderBackend(RenderBackend.Kind kind) {
+        if (kind != this.kind) {
+            this.kind = kind;
+            dropWindow();
+        }
+    }
+
+    /**
+     * Keeps the canvases at 1 / divisor of the panel's resolution in each direction (1 or 2); the
+     * window is rebuilt from the recorded positions on the next setVisibleRect().
+     */
+    public void setResolution(int divisor) {
+        if (divisor != this.divisor) {
+            this.divisor = divisor;
+            scale = 1.0 / divisor;
+            cellPixels = cellSize / divisor;
+            lines = new LineRasterizer(lineWidth / divisor, true);
+            bands = new TrailBands(decay, lines, cellSize);
+            dropWindow();
+        }
+    }
+
+    public int getResolution() {
+        return divisor;
+    }
+
+    private void dropWindow() {
+        if (canvas != null) {
+            canvas.dispose();
+        }
+        if (spareCanvas != null) {
+            spareCanvas.dispose();
+        }
+        canvas = null;
+        spareCanvas = null;
+        stale = false;
+        pixels = null;
+        columns = 0;
+        rows = 0;
+    }
+
+    /**
+     * The given size cut down to MAX_VIEW_WIDTH x MAX_VIEW_HEIGHT, e.g. for a scroll pane's
+     * viewport, which would otherwise ask pack() for room for the whole grid.
+     */
+    public static Dimension viewSize(Dimension size) {
+        return new Dimension(Math.min(size.width, MAX_VIEW_WIDTH), Math.min(size.height, MAX_VIEW_HEIGHT));
+    }
+
+    /**
+     * Moves the window to cover the given rectangle of the panel, copying the cells that stay in
+     * it and replaying the trails of the ones that come into it. Cheap when nothing changed.
+     */
+    public void setVisibleRect(Rectangle visible) {
+        int newColumns = Math.min(gridSize, visible.width / cellSize + 2);
+        int newRows = Math.min(gridSize, visible.height / cellSize + 2);
+        int newFirstColumn = clamp(Math.floorDiv(visible.x - margin, cellSize), gridSize - newColumns);
+        int newFirstRow = clamp(Math.floorDiv(visible.y - margin, cellSize), gridSize - newRows);
+        if (canvas != null && !stale && newColumns == columns && newRows == rows
+                && newFirstColumn == firstColumn && newFirstRow == firstRow) {
+            return;
+        }
+        moveWindow(newFirstColumn, newFirstRow, newColumns, newRows);
+    }
+
+    /**
+     * Records the dots' new positions and advances the trails of the cells in the window by one
+     * step: a fade, then a segment from each dot's previous position to its new one.
+     */
+    public void step(int[] dotX, int[] dotY) {
+        record(dotX, dotY);
+        if (canvas == null || stale) {
+            return;
+        }
+        boolean drawSegments = recorded - 2 >= trailStart;
+        if (pixels != null) {
+            if (drawSegments) {
+                int previous = slot(recorded - 2);
+                for (int col = 0; col < columns; col++) {
+                    previousX[col] = historyX[previous + firstColumn + col] - originX;
+                    currentX[col] = dotX[firstColumn + col] - originX;
+                }
+                for (int row = 0; row < rows; row++) {
+                    previousY[row] = historyY[previous + firstRow + row] - originY;
+                    currentY[row] = dotY[firstRow + row] - originY;
+                }
+            }
+            bands.step(previousX, previousY, currentX, currentY, drawSegments);
+        } else {
+            canvas.fade();
+            if (drawSegments) {
+                drawSegments(canvas, originX, originY, firstColumn, firstRow, columns, rows, recorded - 1);
+            }
+        }
+    }
+
+    /**
+     * Wipes every trail, on and off screen; dots keep moving and start new trails from the next step.
+     */
+    public void clear() {
+        trailStart = recorded;
+        if (canvas != null) {
+            canvas.clear();
+        }
+    }
+
+    public void draw(Graphics2D g2) {
+        if (canvas == null) {
+            return;
+        }
+        if (divisor == 1) {
+            canvas.blit(g2, originX, originY);
+        } else {
+            canvasArea.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
+            GridLayers.blitScaled(g2, canvas, originX, originY, divisor, canvasArea);
+        }
+    }
+
+    private void record(int[] dotX, int[] dotY) {
+        int slot = slot(recorded);
+        System.arraycopy(dotX, 0, historyX, slot, gridSize);
+        System.arraycopy(dotY, 0, historyY, slot, gridSize);
+        recorded++;
+    }
+
+    private int slot(long position) {
+        return (int) (position % historySize) * gridSize;
+    }
+
+    private void moveWindow(int newFirstColumn, int newFirstRow, int newColumns, int newRows) {
+        int width = newColumns * cellPixels;
+        int height = newRows * cellPixels;
+        int newOriginX = margin + newFirstColumn * cellSize;
+        int newOriginY = margin + newFirstRow * cellSize;
+
+        // Build the new window in the spare canvas, then swap the two
+        RenderBackend target = spareCanvas;
+        if (target == null || target.getWidth() != width || target.getHeight() != height) {
+            if (target != null) {
+                target.dispose();
+            }
+            target = kind.create(width, height, decay, true, pool);
+        }
+        int[] targetPixels = target.pixels();
+        if (targetPixels != null) {
+            copyOverlap(targetPixels, newFirstColumn, newFirstRow, newColumns, newRows);
+            for (int row = newFirstRow; row < newFirstRow + newRows; row++) {
+                for (int col = newFirstColumn; col < newFirstColumn + newColumns; col++) {
+                    int x = (col - newFirstColumn) * cellPixels;
+                    int y = (row - newFirstRow) * cellPixels;
+                    if (!inWindow(row, col)) {
+                        replayCell(row, col, targetPixels, width, height, newOriginX, newOriginY, x, y);
+                    }
+                }
+            }
+        } else {
+            replayWindow(target, newOriginX, newOriginY, newFirstColumn, newFirstRow, newColumns, newRows);
+        }
+
+        spareCanvas = canvas;
+        canvas = target;
+        pixels = targetPixels;
+        firstColumn = newFirstColumn;
+        firstRow = newFirstRow;
+        columns = newColumns;
+        rows = newRows;
+        originX = newOriginX;
+        originY = newOriginY;
+        stale = false;
+
+        if (windowArgb.length != columns * rows) {
+            windowArgb = new int[columns * rows];
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                windowArgb[row * columns + col] = colors[firstRow + row][firstColumn + col].getRGB();
+            }
+        }
+        if (previousX.length != columns) {
+            previousX = new int[columns];
+            currentX = new int[columns];
+        }
+        if (previousY.length != rows) {
+            previousY = new int[rows];
+            currentY = new int[rows];
+        }
+        if (pixels != null) {
+            bands.setGrid(pixels, width, height, columns, rows, 0, windowArgb, (float) scale);
+        }
+    }
+
+    // Redraws a whole window on a surface without pixels, step by step as step() would have
+    private void replayWindow(RenderBackend target, int targetOriginX, int targetOriginY,
+                              int fromColumn, int fromRow, int columns, int rows) {
+        target.clear();
+        long first = Math.max(trailStart, recorded - historySize);
+        for (long position = first + 1; position < recorded; position++) {
+            target.fade();
+            drawSegments(target, targetOriginX, targetOriginY, fromColumn, fromRow, columns, rows, position);
+        }
+    }
+
+    // The segments the given cells drew on arriving at the given position, through the surface
+    private void drawSegments(RenderBackend target, int targetOriginX, int targetOriginY,
+                              int fromColumn, int fromRow, int columns, int rows, long position) {
+        int previous = slot(position - 1);
+        int current = slot(position);
+        for (int row = fromRow; row < fromRow + rows; row++) {
+            if (rowStart[row] > position - 1) {
+                continue;
+            }
+            double y0 = (historyY[previous + row] - targetOriginY) * scale;
+            double y1 = (historyY[current + row] - targetOriginY) * scale;
+            for (int col = fromColumn; col < fromColumn + columns; col++) {
+                if (columnStart[col] > position - 1) {
+                    continue;
+                }
+                target.line((historyX[previous + col] - targetOriginX) * scale, y0,
+                        (historyX[current + col] - targetOriginX) * scale, y1, (float) (lineWidth * scale),
+                        colors[row][col].getRGB());
+            }
+        }
+    }
+
+    private boolean inWindow(int row, int col) {
+        return canvas != null && row >= firstRow && row < firstRow + rows
+                && col >= firstColumn && col < firstColumn + columns;
+    }
+
+    // Copies the cells both windows share into the new one, a whole span per pixel row, and clears the rest
+    private void copyOverlap(int[] target, int newFirstColumn, int newFirstRow, int newColumns, int newRows) {
+        int targetWidth = newColumns * cellPixels;
+        int fromColumn = Math.max(firstColumn, newFirstColumn);
+        int toColumn = Math.min(firstColumn + columns, newFirstColumn + newColumns);
+        int fromRow = Math.max(firstRow, newFirstRow);
+        int toRow = Math.min(firstRow + rows, newFirstRow + newRows);
+        if (canvas == null || fromColumn >= toColumn || fromRow >= toRow) {
+            Arrays.fill(target, 0, targetWidth * newRows * cellPixels, 0);
+            return;
+        }
+        int sourceWidth = columns * cellPixels;
+        int span = (toColumn - fromColumn) * cellPixels;
+        int sourceX = (fromColumn - firstColumn) * cellPixels;
+        int targetX = (fromColumn - newFirstColumn) * cellPixels;
+        int sourceY = (fromRow - firstRow) * cellPixels;
+        int targetTop = (fromRow - newFirstRow) * cellPixels;
+        int targetBottom = (toRow - newFirstRow) * cellPixels;
+
+        Arrays.fill(target, 0, targetTop * targetWidth, 0);
+        for (int y = targetTop; y < targetBottom; y++) {
+            int rowStart = y * targetWidth;
+            Arrays.fill(target, rowStart, rowStart + targetX, 0);
+            System.arraycopy(pixels, (sourceY + y - targetTop) * sourceWidth + sourceX, target, rowStart + targetX, span);
+            Arrays.fill(target, rowStart + targetX + span, rowStart + targetWidth, 0);
+        }
+        Arrays.fill(target, targetBottom * targetWidth, targetWidth * newRows * cellPixels, 0);
+    }
+
+    /*
+     * Rebuilds one cell's trail from the recorded positions. Fading the whole square before every
+     * replayed segment would touch cellSize^2 pixels per step, so the fade is applied lazily: a
+     * pixel is only caught up (TrailDecay.fade) when the next segment is about to touch it, and
+     * everything the replay touched is caught up once more at the end. Because a fade only ever
+     * depends on the pixel itself, the result is the same as fading the square step by step.
+     */
+    private void replayCell(int row, int col, int[] target, int width, int height,
+                            int targetOriginX, int targetOriginY, int x, int y) {
+        if (replayStamps.length != cellPixels * cellPixels) {
+            replayStamps = new int[cellPixels * cellPixels];
+        }
+        int[] stamps = replayStamps;
+        Arrays.fill(stamps, 0);
+        // The cell's corner on the panel; positions are turned into canvas pixels of the cell
+        int cellLeft = targetOriginX + x * divisor;
+        int cellTop = targetOriginY + y * divisor;
+        int touchedLeft = cellPixels;
+        int touchedTop = cellPixels;
+        int touchedRight = -1;
+        int touchedBottom = -1;
+
+        long first = Math.max(Math.max(trailStart, recorded - historySize),
+                Math.max(columnStart[col], rowStart[row]));
+        int replayStep = 0;
+        for (long position = first + 1; position < recorded; position++) {
+            replayStep++;
+            int previous = slot(position - 1);
+            int current = slot(position);
+            int x0 = Math.floorDiv(historyX[previous + col] - cellLeft, divisor);
+            int x1 = Math.floorDiv(historyX[current + col] - cellLeft, divisor);
+            int y0 = Math.floorDiv(historyY[previous + row] - cellTop, divisor);
+            int y1 = Math.floorDiv(historyY[current + row] - cellTop, divisor);
+            int left = Math.max(0, Math.min(x0, x1) - pad);
+            int right = Math.min(cellPixels - 1, Math.max(x0, x1) + pad);
+            int top = Math.max(0, Math.min(y0, y1) - pad);
+            int bottom = Math.min(cellPixels - 1, Math.max(y0, y1) + pad);
+            catchUp(target, width, x, y, stamps, left, top, right, bottom, replayStep);
+            drawSegment(target, width, height, targetOriginX, targetOriginY, row, col, position);
+            touchedLeft = Math.min(touchedLeft, left);
+            touchedTop = Math.min(touchedTop, top);
+            touchedRight = Math.max(touchedRight, right);
+            touchedBottom = Math.max(touchedBottom, bottom);
+        }
+        // The segments of the last replayed step are not faded yet, as in step()
+        catchUp(target, width, x, y, stamps, touchedLeft, touchedTop, touchedRight, touchedBottom, replayStep);
+    }
+
+    // Brings the cell pixels in [left, right] x [top, bottom] up to date with replay step 'now'
+    private void catchUp(int[] target, int width, int x, int y, int[] stamps,
+                         int left, int top, int right, int bottom, int now) {
+        for (int cy = top; cy <= bottom; cy++) {
+            for (int cx = left; cx <= right; cx++) {
+                int stamp = cy * cellPixels + cx;
+                int i = (y + cy) * width + x + cx;
+                if (stamps[stamp] != now) {
+                    target[i] = decay.fade(target[i], now - stamps[stamp]);
+                    stamps[stamp] = now;
+                }
+            }
+        }
+    }
+
+    // The segment cell (row, col) drew on arriving at the given position
+    private void drawSegment(int[] target, int width, int height, int targetOriginX, int targetOriginY, int row, int col, long position) {
+        int previous = slot(position - 1);
+        int current = slot(position);
+        int x0 = historyX[previous + col];
+        int y0 = historyY[previous + row];
+        int x1 = historyX[current + col];
+        int y1 = historyY[current + row];
+        lines.drawLine(target, width, height, (x0 - targetOriginX) * scale, (y0 - targetOriginY) * scale,
+                (x1 - targetOriginX) * scale, (y1 - targetOriginY) * scale, colors[row][col].getRGB());
+    }
+
+    private int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
@@ -0,0 +1,150 @@
+import java.awt.*;
+import java.awt.image.VolatileImage;
+
+/**
+ * The VolatileImage backend: the surface lives where the graphics pipeline can accelerate it
+ * (video memory with the OpenGL or Direct3D pipelines), so drawing and blitting it need not touch
+ * the CPU's copy. The price is that its pixels are out of reach, so the fade is a translucent
+ * fillRect (SRC_OVER black when opaque, DST_IN when translucent). That rounds in 8 bits and can
+ * leave faint ghost pixels that TrailDecay's threshold would have cleared.
+ *
+ * The image can lose its contents at any time (display mode change, another full-screen app);
+ * they are not kept elsewhere, so the trails then simply start again from black.
+ */
+public class VolatileBackend implements RenderBackend {
+
+    private final int width;
+    private final int height;
+    private final boolean opaque;
+    private final GraphicsConfiguration configuration;
+    private final AlphaComposite fadeComposite;
+    private final PaintCache paints = new PaintCache();
+    private final ReusableSegment segment = new ReusableSegment();
+    private final Rectangle bounds;
+    private VolatileImage image;
+    private Graphics2D g2;
+
+    public VolatileBackend(int width, int height, TrailDecay decay, boolean opaque) {
+        if (GraphicsEnvironment.isHeadless()) {
+            throw new IllegalStateException("VolatileImage needs a display");
+        }
+        this.width = width;
+        this.height = height;
+        this.opaque = opaque;
+        configuration = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration();
+        float fadeAlpha = decay == null ? 0f : decay.getFadeAlpha();
+        fadeComposite = opaque
+                ? AlphaComposite.getInstance(AlphaComposite.SRC_OVER, fadeAlpha)
+                : AlphaComposite.getInstance(AlphaComposite.DST_IN, 1f - fadeAlpha);
+        bounds = new Rectangle(0, 0, width, height);
+        createImage();
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.VOLATILE;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        Graphics2D g2 = graphics();
+        g2.setComposite(AlphaComposite.Src);
+        g2.setColor(opaque ? Color.BLACK : new Color(0, 0, 0, 0));
+        g2.fillRect(0, 0, width, height);
+        g2.setComposite(AlphaComposite.SrcOver);
+    }
+
+    @Override
+    public void fade() {
+        Graphics2D g2 = graphics();
+        g2.setComposite(fadeComposite);
+        g2.setColor(Color.BLACK);
+        g2.fillRect(0, 0, width, height);
+        g2.setComposite(AlphaComposite.SrcOver);
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1, float width, int argb) {
+        Graphics2D g2 = graphics();
+        g2.setStroke(paints.stroke(width));
+        g2.setColor(paints.color(argb));
+        segment.setLine(x0, y0, x1, y1);
+        g2.draw(segment);
+    }
+
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, float width, int[] argb) {
+        paints.drawPolyline(graphics(), xs, ys, count, width, argb);
+    }
+
+    @Override
+    public void dot(Sprite sprite, int x, int y) {
+        sprite.draw(graphics(), x, y);
+    }
+
+    @Override
+    public Rectangle flush() {
+        return bounds;
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y) {
+        graphics();
+        g2.drawImage(image, x, y, null);
+    }
+
+    @Override
+    public void blit(Graphics2D g2, int x, int y, Rectangle area, int scale) {
+        graphics();
+        g2.drawImage(image, x + area.x * scale, y + area.y * scale,
+                x + (area.x + area.width) * scale, y + (area.y + area.height) * scale,
+                area.x, area.y, area.x + area.width, area.y + area.height, null);
+    }
+
+    @Override
+    public void dispose() {
+        g2.dispose();
+        image.flush();
+    }
+
+    // The image's Graphics2D, after making sure the image is still there
+    private Graphics2D graphics() {
+        int status = image.validate(configuration);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            g2.dispose();
+            image.flush();
+            createImage();
+        } else if (status == VolatileImage.IMAGE_RESTORED) {
+            g2.dispose();
+            initGraphics();
+        }
+        return g2;
+    }
+
+    private void createImage() {
+        image = configuration.createCompatibleVolatileImage(width, height,
+                opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+        initGraphics();
+    }
+
+    // A new or restored image holds garbage, so it starts cleared
+    private void initGraphics() {
+        g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setComposite(AlphaComposite.Src);
+        g2.setColor(opaque ? Color.BLACK : new Color(0, 0, 0, 0));
+        g2.fillRect(0, 0, width, height);
+        g2.setComposite(AlphaComposite.SrcOver);
+    }
+}
@@ -0,0 +1,95 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The curves of {@link ParametricCurve} with the Vector API: each pass of the loop evaluates as
+ * many t as the widest double vector the CPU has (4 with AVX2, 8 with AVX-512), and the tail of
+ * the batch is done one t at a time like ScalarCurves. The sin / cos / exp lanes are intrinsics
+ * where the JIT has them, so the butterfly's four transcendental calls per point vectorize too.
+ *
+ * Compiled and loaded only with --add-modules jdk.incubator.vector (see ParametricCurve);
+ * ParametricCurve.Kind finds this class by name.
+ */
+public class VectorCurves {
+
+    public static final ParametricCurve.Factory FACTORY = new ParametricCurve.Factory() {
+        @Override
+        public ParametricCurve butterfly() {
+            return new Butterfly();
+        }
+
+        @Override
+        public ParametricCurve lissajous(double radius, double a, double b) {
+            return new Lissajous(radius, a, b);
+        }
+    };
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorCurves() {
+    }
+
+    static final class Butterfly implements ParametricCurve {
+
+        @Override
+        public Kind kind() {
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public void evaluate(double[] t, double[] x, double[] y, int n) {
+            int i = 0;
+            for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+                DoubleVector v = DoubleVector.fromArray(SPECIES, t, i);
+                DoubleVector sin = v.lanewise(VectorOperators.SIN);
+                DoubleVector cos = v.lanewise(VectorOperators.COS);
+                // sin^5(t/12) as multiplies, which the scalar version leaves to Math.pow
+                DoubleVector s = v.div(12).lanewise(VectorOperators.SIN);
+                DoubleVector s2 = s.mul(s);
+                DoubleVector r = cos.lanewise(VectorOperators.EXP)
+                        .sub(v.mul(4).lanewise(VectorOperators.COS).mul(2))
+                        .sub(s2.mul(s2).mul(s));
+                sin.mul(r).intoArray(x, i);
+                cos.mul(r).intoArray(y, i);
+            }
+            for (; i < n; i++) {
+                double r = ButterflyTable.radius(t[i]);
+                x[i] = Math.sin(t[i]) * r;
+                y[i] = Math.cos(t[i]) * r;
+            }
+        }
+    }
+
+    static final class Lissajous implements ParametricCurve {
+
+        private final double radius;
+        private final double a;
+        private final double b;
+
+        Lissajous(double radius, double a, double b) {
+            this.radius = radius;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public Kind kind() {
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public void evaluate(double[] t, double[] x, double[] y, int n) {
+            int i = 0;
+            for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+                DoubleVector v = DoubleVector.fromArray(SPECIES, t, i);
+                v.mul(a).lanewise(VectorOperators.COS).mul(radius).intoArray(x, i);
+                v.mul(b).lanewise(VectorOperators.SIN).mul(radius).intoArray(y, i);
+            }
+            for (; i < n; i++) {
+                x[i] = radius * Math.cos(a * t[i]);
+                y[i] = radius * Math.sin(b * t[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.function.LongSupplier;
+
+/**
+ * The work the JMH benchmarks in jmh/benchmarks time, set up once per trial and returned as a
+ * LongSupplier whose result the benchmark hands back to JMH. JMH will not generate benchmarks in
+ * the default package, and a class in any other package cannot name the demos, so the cases are
+ * built here and looked up by name (see benchmarks.Cases). They mirror the cases of
+ * {@link Benchmarks}, which runs without JMH.
+ */
+public final class BenchmarkCases {
+
+    private BenchmarkCases() {
+    }
+
+    // Butterfly curve evaluation exactly as ButterflyCurve / SmoothButterflyCurve compute it per step
+    public static LongSupplier butterfly(int samples) {
+        double[] t = {0};
+        return () -> {
+            long acc = 0;
+            for (int i = 0; i < samples; i++) {
+                double r = Math.exp(Math.cos(t[0])) - 2 * Math.cos(4 * t[0]) - Math.pow(Math.sin(t[0] / 12), 5);
+                acc += (long) (Math.sin(t[0]) * r * 60) + (long) (Math.cos(t[0]) * r * 60);
+                t[0] += 0.02;
+            }
+            return acc;
+        };
+    }
+
+    // The same samples looked up in a ButterflyTable
+    public static LongSupplier butterflyTable(int samples) {
+        ButterflyTable table = new ButterflyTable(60, 0.1);
+        double[] t = {0};
+        return () -> {
+            long acc = 0;
+            for (int i = 0; i < samples; i++) {
+                acc += (long) (table.sampleX(t[0]) * 60) + (long) (table.sampleY(t[0]) * 60);
+                t[0] += 0.02;
+                if (t[0] >= ButterflyTable.PERIOD) {
+                    t[0] -= ButterflyTable.PERIOD;
+                }
+            }
+            return acc;
+        };
+    }
+
+    /*
+     * One Timer tick of LissajousDrawerWithFrequencies as its panel would see it: stepFrame(),
+     * then paintComponent() into a canvasSize x canvasSize view of the grid, background first.
+     * The grid decides how much there is to simulate and to keep trails for, the canvas how much
+     * of it is painted, so the two are set apart.
+     */
+    public static LongSupplier lissajousCycle(int gridSize, int canvasSize) {
+        LissajousDrawerWithFrequencies drawer = new LissajousDrawerWithFrequencies(false);
+        drawer.setGridSize(gridSize);
+        drawer.setSimulationClock(SimulationClock.deterministic());
+        BufferedImage frame = new BufferedImage(canvasSize, canvasSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = frame.createGraphics();
+        return () -> {
+            drawer.stepFrame();
+            g2.setColor(Color.BLACK);
+            g2.fillRect(0, 0, canvasSize, canvasSize);
+            drawer.renderFrame(g2);
+            return frame.getRGB(canvasSize / 2, canvasSize / 2);
+        };
+    }
+
+    /*
+     * The trail fade pass on a canvasSize canvas. A canvas faded for long enough is black, and
+     * TrailDecay skips black pixels, so the scribbles are put back once they have faded out: the
+     * time is the average over a trail's whole life, restored at a cost of one copy per life.
+     */
+    public static LongSupplier trailDecay(int canvasSize) {
+        BufferedImage canvas = Benchmarks.scribbledCanvas(canvasSize);
+        int[] pixels = TrailDecay.pixelsOf(canvas);
+        int[] scribbles = pixels.clone();
+        TrailDecay decay = new TrailDecay(0.01f);
+        int life = decay.stepsToBlack();
+        int[] step = {0};
+        return () -> {
+            if (step[0]++ == life) {
+                System.arraycopy(scribbles, 0, pixels, 0, pixels.length);
+                step[0] = 0;
+            }
+            decay.apply(pixels, canvasSize, canvasSize);
+            return pixels[pixels.length / 2];
+        };
+    }
+
+    // The translucent fillRect TrailDecay replaced, restored on the same schedule
+    public static LongSupplier fillRect(int canvasSize) {
+        BufferedImage canvas = Benchmarks.scribbledCanvas(canvasSize);
+        BufferedImage scribbles = Benchmarks.scribbledCanvas(canvasSize);
+        Graphics2D g2 = canvas.createGraphics();
+        AlphaComposite fade = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.01f);
+        int life = new TrailDecay(0.01f).stepsToBlack();
+        int[] step = {0};
+        return () -> {
+            if (step[0]++ == life) {
+                g2.setComposite(AlphaComposite.Src);
+                g2.drawImage(scribbles, 0, 0, null);
+                step[0] = 0;
+            }
+            g2.setComposite(fade);
+            g2.setColor(Color.BLACK);
+            g2.fillRect(0, 0, canvasSize, canvasSize);
+            return canvas.getRGB(canvasSize / 2, canvasSize / 2);
+        };
+    }
+
+    /*
+     * curve ("butterfly" or "lissajous") evaluated at n points by the ParametricCurve kernels of
+     * kind ("SCALAR" or "VECTOR"), the batch the curve samplers fill in one call.
+     */
+    public static LongSupplier parametric(String kind, String curve, int n) {
+        ParametricCurve.Kind kernels = ParametricCurve.Kind.valueOf(kind);
+        if (!kernels.isAvailable()) {
+            throw new IllegalStateException(kind + " kernels are not available; is jdk.incubator.vector added?");
+        }
+        ParametricCurve.Factory curves = kernels.factory();
+        ParametricCurve evaluated = curve.equals("butterfly") ? curves.butterfly() : curves.lissajous(40, 3, 2);
+        double[] t = new double[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            t[i] = i * 0.02;
+        }
+        return () -> {
+            evaluated.evaluate(t, x, y, n);
+            return (long) x[n - 1] + (long) y[n - 1];
+        };
+    }
+}
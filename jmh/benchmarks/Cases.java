@@ -0,0 +1,34 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.LongSupplier;
+
+/**
+ * Looks up the cases in the default-package BenchmarkCases, which this package cannot name. Only
+ * the setup goes through reflection; the benchmarks call the LongSupplier they get back directly.
+ */
+final class Cases {
+
+    private Cases() {
+    }
+
+    // The case's parameters are ints or Strings, as JMH's @Params are here
+    static LongSupplier get(String name, Object... args) {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i] instanceof Integer ? int.class : args[i].getClass();
+        }
+        try {
+            Class<?> cases = Class.forName("BenchmarkCases");
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findStatic(cases, name, MethodType.methodType(LongSupplier.class, types));
+            return (LongSupplier) handle.invokeWithArguments(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot set up benchmark case " + name, e);
+        }
+    }
+}
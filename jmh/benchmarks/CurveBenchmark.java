@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The butterfly curve per sample: evaluated as the drawers do, and looked up in a ButterflyTable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurveBenchmark {
+
+    @Param({"1", "1000"})
+    int samples;
+
+    private LongSupplier butterfly;
+    private LongSupplier table;
+
+    @Setup
+    public void setUp() {
+        butterfly = Cases.get("butterfly", samples);
+        table = Cases.get("butterflyTable", samples);
+    }
+
+    @Benchmark
+    public long butterfly() {
+        return butterfly.getAsLong();
+    }
+
+    @Benchmark
+    public long table() {
+        return table.getAsLong();
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The trail fade pass by canvas size: TrailDecay against the AlphaComposite fillRect it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FadeBenchmark {
+
+    @Param({"200", "400", "700", "800", "1300"})
+    int canvasSize;
+
+    private LongSupplier trailDecay;
+    private LongSupplier fillRect;
+
+    @Setup
+    public void setUp() {
+        trailDecay = Cases.get("trailDecay", canvasSize);
+        fillRect = Cases.get("fillRect", canvasSize);
+    }
+
+    @Benchmark
+    public long trailDecay() {
+        return trailDecay.getAsLong();
+    }
+
+    @Benchmark
+    public long fillRect() {
+        return fillRect.getAsLong();
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One step and paint of LissajousDrawerWithFrequencies, headless. The grid size and the size of
+ * the canvas painted into vary on their own: the demo's panel is as large as its grid, so a run
+ * with the two matched (grid 6, canvas 700) is what the demo does, and the others show which of
+ * them a frame's cost follows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LissajousBenchmark {
+
+    @Param({"1", "2", "4", "6", "8", "12"})
+    int gridSize;
+
+    @Param({"200", "400", "700", "1300"})
+    int canvasSize;
+
+    private LongSupplier cycle;
+
+    @Setup
+    public void setUp() {
+        cycle = Cases.get("lissajousCycle", gridSize, canvasSize);
+    }
+
+    @Benchmark
+    public long cycle() {
+        return cycle.getAsLong();
+    }
+}
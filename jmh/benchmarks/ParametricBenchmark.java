@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The scalar ParametricCurve kernels against the Vector API ones, on the same n points. The
+ * vector width is whatever the JVM prefers on the machine; -jvmArgsAppend -XX:UseAVX=2 holds an
+ * AVX-512 machine to 256-bit vectors. The results are in jmh/README.md.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParametricBenchmark {
+
+    @Param({"butterfly", "lissajous"})
+    String curve;
+
+    @Param({"16", "256", "4096"})
+    int n;
+
+    private LongSupplier scalar;
+    private LongSupplier vector;
+
+    @Setup
+    public void setUp() {
+        scalar = Cases.get("parametric", "SCALAR", curve, n);
+        vector = Cases.get("parametric", "VECTOR", curve, n);
+    }
+
+    @Benchmark
+    public long scalar() {
+        return scalar.getAsLong();
+    }
+
+    @Benchmark
+    public long vector() {
+        return vector.getAsLong();
+    }
+}